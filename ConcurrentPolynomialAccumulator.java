@@ -0,0 +1,225 @@
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accumulates terms added from many threads into one polynomial. Exponents are
+ * spread by hash over a number of stripes, each a primitive open-addressing
+ * map from exponent to coefficient behind its own lock, so threads adding to
+ * different stripes never wait for each other. There is one stripe per few
+ * processors by default, which keeps contention low without the cost of a
+ * lock per exponent.
+ *
+ * snapshot locks every stripe at once, so the polynomial it returns holds
+ * exactly the terms of the adds which completed before it, with no add half
+ * counted. As with DoubleAdder, coefficients added concurrently to the same
+ * exponent are summed in no particular order, so the result may differ from a
+ * sequential sum in the last bits.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class ConcurrentPolynomialAccumulator{
+
+    private static final int MAX_STRIPES = 1 << 10;
+
+    private final Stripe[] stripes;
+    private final int shift; // selects the stripe from the high bits of a hash
+
+    /**
+     * Constructs an empty accumulator with four stripes per processor.
+     */
+    public ConcurrentPolynomialAccumulator(){
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an empty accumulator.
+     *
+     * @param stripes the number of independently locked stripes, rounded up to
+     * a power of two no larger than 1024.
+     * @throws IllegalArgumentException if stripes is less than 1.
+     */
+    public ConcurrentPolynomialAccumulator(int stripes){
+        if(stripes < 1) throw new IllegalArgumentException();
+        int n = stripes == 1 ? 1 : Integer.highestOneBit(Math.min(stripes, MAX_STRIPES) - 1) << 1;
+        this.stripes = new Stripe[n];
+        shift = 32 - Integer.numberOfTrailingZeros(n);
+        for(int i = 0; i < n; i++){
+            this.stripes[i] = new Stripe(32 - shift);
+        }
+    }
+
+    private static int hash(int exp){
+        // Fibonacci hashing, so consecutive exponents spread over all stripes.
+        return exp * 0x9E3779B9;
+    }
+
+    /**
+     * Adds a term. A zero coefficient is accepted and simply contributes
+     * nothing. Safe to call from any number of threads at once.
+     *
+     * @param coef the coefficient of the term.
+     * @param exp the exponent of the term.
+     * @throws IllegalArgumentException if a negative exponent value is passed.
+     */
+    public void add(double coef, int exp){
+        if(exp < 0) throw new IllegalArgumentException();
+        int h = hash(exp);
+        Stripe stripe = stripes[shift == 32 ? 0 : h >>> shift];
+        stripe.lock();
+        try{
+            stripe.add(coef, exp, h);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Returns the polynomial of all terms added so far. Adds made while the
+     * snapshot is taken are either wholly included or wholly left out.
+     *
+     * @return the accumulated polynomial.
+     */
+    public Polynomial snapshot(){
+        lockAll();
+        try{
+            int total = 0;
+            for(Stripe stripe : stripes){
+                total += stripe.size;
+            }
+            PolynomialBuilder builder = new PolynomialBuilder(total);
+            for(Stripe stripe : stripes){
+                for(int i = 0; i < stripe.keys.length; i++){
+                    if(stripe.keys[i] != 0){
+                        builder.add(stripe.values[i], stripe.keys[i] - 1);
+                    }
+                }
+            }
+            return builder.build();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Returns the most slots any lookup of a present exponent has to probe,
+     * over all stripes.
+     */
+    int longestProbe(){
+        lockAll();
+        try{
+            int longest = 0;
+            for(Stripe stripe : stripes){
+                longest = Math.max(longest, stripe.longestProbe());
+            }
+            return longest;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Removes every term, leaving the accumulator as if newly constructed.
+     */
+    public void reset(){
+        lockAll();
+        try{
+            for(Stripe stripe : stripes){
+                stripe.clear();
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void lockAll(){
+        // Always in index order, so two threads locking all cannot deadlock.
+        for(Stripe stripe : stripes){
+            stripe.lock();
+        }
+    }
+
+    private void unlockAll(){
+        for(int i = stripes.length - 1; i >= 0; i--){
+            stripes[i].unlock();
+        }
+    }
+
+    /**
+     * One stripe: an open-addressing map with linear probing, holding
+     * exponent + 1 in keys so that 0 marks an empty slot. The slot is taken
+     * from the high bits of the hash left over after choosing the stripe,
+     * which mix well even for exponents a power of two apart. Only accessed
+     * with the lock held.
+     */
+    private static class Stripe extends ReentrantLock{
+        private static final long serialVersionUID = 1L;
+
+        final int stripeBits; // high bits of the hash used to choose the stripe
+        int[] keys = new int[16];
+        double[] values = new double[16];
+        int size;
+
+        Stripe(int stripeBits){
+            this.stripeBits = stripeBits;
+        }
+
+        void add(double coef, int exp, int h){
+            int key = exp + 1;
+            int mask = keys.length - 1;
+            int i = slot(h);
+            while(keys[i] != 0){
+                if(keys[i] == key){
+                    values[i] += coef;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = coef;
+            // Kept at most half full, so probes stay short.
+            if(++size * 2 > keys.length){
+                grow();
+            }
+        }
+
+        private int slot(int h){
+            // The bits just below those which chose the stripe.
+            return (h << stripeBits) >>> (32 - Integer.numberOfTrailingZeros(keys.length));
+        }
+
+        private void grow(){
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for(int j = 0; j < oldKeys.length; j++){
+                if(oldKeys[j] != 0){
+                    int i = slot(hash(oldKeys[j] - 1));
+                    while(keys[i] != 0){
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        int longestProbe(){
+            int mask = keys.length - 1;
+            int longest = 0;
+            for(int j = 0; j < keys.length; j++){
+                if(keys[j] != 0){
+                    longest = Math.max(longest, ((j - slot(hash(keys[j] - 1))) & mask) + 1);
+                }
+            }
+            return longest;
+        }
+
+        void clear(){
+            keys = new int[16];
+            values = new double[16];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.concurrent.CountDownLatch;
+import junit.framework.TestCase;
+
+public class ConcurrentPolynomialAccumulatorTest extends TestCase{
+    
+    public void testSingleThread(){
+        ConcurrentPolynomialAccumulator acc = new ConcurrentPolynomialAccumulator(1);
+        acc.add(3, 2);
+        acc.add(0, 7);
+        acc.add(-1, 0);
+        acc.add(2, 2);
+        assertTrue(acc.snapshot().equals(new Polynomial("5 2 -1 0")));
+        acc.add(-5, 2);
+        assertTrue(acc.snapshot().equals(new Polynomial("-1 0")));
+        acc.reset();
+        assertTrue(acc.snapshot().terms() == 0);
+        try{
+            acc.add(1, -1);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            new ConcurrentPolynomialAccumulator(0);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        acc = new ConcurrentPolynomialAccumulator(Integer.MAX_VALUE);
+        acc.add(1, 1 << 30);
+        assertTrue(acc.snapshot().getCoefficient(1 << 30) == 1);
+    }
+    
+    public void testConcurrent() throws InterruptedException{
+        // Every thread adds 1 to each exponent, so each coefficient is exactly
+        // the number of threads however the adds interleave.
+        ConcurrentPolynomialAccumulator acc = new ConcurrentPolynomialAccumulator(8);
+        int threads = 8;
+        int exponents = 20000;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++){
+            int offset = t * 997;
+            workers[t] = new Thread(() -> {
+                try{
+                    start.await();
+                } catch (InterruptedException e){
+                    return;
+                }
+                for(int i = 0; i < exponents; i++){
+                    acc.add(1, (i + offset) % exponents);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        // Snapshots taken mid-way must hold whole numbers of adds.
+        Polynomial partial = acc.snapshot();
+        for(int e = 0; e < exponents; e++){
+            double c = partial.getCoefficient(e);
+            assertTrue(c >= 0 && c <= threads && c == Math.rint(c));
+        }
+        for(Thread worker : workers){
+            worker.join();
+        }
+        Polynomial p = acc.snapshot();
+        assertTrue(p.terms() == exponents);
+        for(int e = 0; e < exponents; e++){
+            assertTrue(p.getCoefficient(e) == threads);
+        }
+    }
+    
+    public void testStrided(){
+        // Exponents a large power of two apart share their low hash bits, so
+        // slots chosen from those bits would form long probe runs.
+        int n = 100000;
+        for(int stride : new int[]{16, 16384}){
+            ConcurrentPolynomialAccumulator acc = new ConcurrentPolynomialAccumulator(4);
+            for(int i = 0; i < n; i++){
+                acc.add(i + 1, i * stride);
+            }
+            assertTrue("stride " + stride + " probe " + acc.longestProbe(),
+                       acc.longestProbe() <= 32);
+            Polynomial p = acc.snapshot();
+            assertTrue(p.terms() == n);
+            for(int i = 0; i < n; i += 997){
+                assertTrue(p.getCoefficient(i * stride) == i + 1);
+            }
+        }
+    }
+}
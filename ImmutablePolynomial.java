@@ -0,0 +1,133 @@
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A Polynomial which cannot be modified. The hash code is computed once, and
+ * instances are interned so that equal polynomials obtained through
+ * {@link #of(Polynomial)} are the same object. That makes them safe to use as
+ * keys and to share between threads, see PolynomialCache.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public final class ImmutablePolynomial extends Polynomial{
+
+    // Interned instances, held weakly so unused ones can still be collected.
+    private static final Map<ImmutablePolynomial, WeakReference<ImmutablePolynomial>>
+        interned = new WeakHashMap<>();
+
+    private final int hash;
+
+    private ImmutablePolynomial(Polynomial p){
+        super(p);
+        hash = super.hashCode();
+    }
+
+    /**
+     * Returns the interned immutable polynomial equal to p, creating it if
+     * there is none yet. p itself is copied, never kept.
+     *
+     * @param p the polynomial to intern.
+     * @return the immutable polynomial equal to p.
+     * @throws NullPointerException if p is null.
+     */
+    public static ImmutablePolynomial of(Polynomial p){
+        if(p == null) throw new NullPointerException();
+        if(p instanceof ImmutablePolynomial){
+            return (ImmutablePolynomial)p;
+        }
+        synchronized(interned){
+            WeakReference<ImmutablePolynomial> ref = interned.get(p);
+            ImmutablePolynomial poly = ref == null ? null : ref.get();
+            if(poly == null){
+                poly = new ImmutablePolynomial(p);
+                interned.put(poly, new WeakReference<>(poly));
+            }
+            return poly;
+        }
+    }
+
+    /**
+     * Returns the interned immutable polynomial parsed from a String.
+     *
+     * @param s the polynomial expression, as for the Polynomial constructor.
+     * @return the immutable polynomial.
+     * @throws IllegalArgumentException if s is malformed.
+     */
+    public static ImmutablePolynomial of(String s){
+        return of(new Polynomial(s));
+    }
+
+    /**
+     * Not supported, immutable polynomials cannot be modified.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    public void addTerm(double coef, int exp){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, immutable polynomials cannot be modified.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    public double deleteTerm(int exp){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, immutable polynomials cannot be modified.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    public void addInPlace(Polynomial p){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, immutable polynomials cannot be modified.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    public void subtractInPlace(Polynomial p){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, immutable polynomials cannot be modified.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    public void scaleInPlace(double factor){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the hash code computed when this polynomial was created.
+     *
+     * @return the hash code of this polynomial.
+     */
+    public int hashCode(){
+        return hash;
+    }
+
+    /**
+     * Checks for content equality. Interned instances are compared by
+     * identity.
+     *
+     * @param o the object to be compared for equality.
+     * @return true if the two polynomials are equal.
+     */
+    public boolean equals(Object o){
+        if(this == o){
+            return true;
+        }
+        if(o instanceof ImmutablePolynomial){
+            // Both interned, so equal content would have meant the same object.
+            return false;
+        }
+        return o instanceof Polynomial && hash == o.hashCode() && super.equals(o);
+    }
+}
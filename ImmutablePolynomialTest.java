@@ -0,0 +1,52 @@
+import junit.framework.TestCase;
+
+public class ImmutablePolynomialTest extends TestCase{
+    private static final String string = "3 5 4 4 5 3 6 2 1 1 9 0";
+    
+    public void testInterning(){
+        Polynomial poly = new Polynomial(string);
+        ImmutablePolynomial a = ImmutablePolynomial.of(poly);
+        ImmutablePolynomial b = ImmutablePolynomial.of(string);
+        assertSame(a, b);
+        assertSame(a, ImmutablePolynomial.of(a));
+        assertTrue(a.equals(poly));
+        assertTrue(poly.equals(a));
+        assertTrue(a.hashCode() == poly.hashCode());
+        poly.addTerm(1, 9);
+        assertFalse(a.equals(poly));
+        assertTrue(a.terms() == 6);
+    }
+    
+    public void testHashCode(){
+        // Equal polynomials in different layouts share a hash code.
+        Polynomial sparse = new Polynomial("1 100 2 0");
+        Polynomial dense = new Polynomial("1 100 2 0");
+        for(int i = 1; i < 100; i++){
+            dense.addTerm(1, i);
+        }
+        for(int i = 1; i < 100; i++){
+            dense.deleteTerm(i);
+        }
+        assertTrue(dense.equals(sparse));
+        assertTrue(dense.hashCode() == sparse.hashCode());
+    }
+    
+    public void testImmutable(){
+        ImmutablePolynomial a = ImmutablePolynomial.of(string);
+        try{
+            a.addTerm(1, 2);
+            fail("Expected UOE not thrown.");
+        } catch (UnsupportedOperationException e){
+        }
+        try{
+            a.scaleInPlace(2);
+            fail("Expected UOE not thrown.");
+        } catch (UnsupportedOperationException e){
+        }
+        Polynomial copy = a.sharedCopy();
+        copy.addTerm(1, 2);
+        assertTrue(a.getCoefficient(2) == 6);
+        assertTrue(a.derivative().equals(new Polynomial("15 4 16 3 15 2 12 1 1 0")));
+        assertTrue(a.getCoefficient(5) == 3);
+    }
+}
@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
 import junit.framework.TestCase;
 
 public class JUnitTestClass extends TestCase{
@@ -94,8 +100,106 @@ public class JUnitTestClass extends TestCase{
         String test = "15 4 16 3 15 2 12 1 1 0";
         Polynomial pn = new Polynomial(test);
         assertTrue(poly.derivative().equals(pn));
+        // poly is 3x^5 + 4x^4 + 5x^3 + 6x^2 + x + 9 and is left unchanged.
+        assertTrue(poly.derivative(0).equals(poly));
+        assertTrue(poly.derivative(3).equals(new Polynomial("180 2 96 1 30 0")));
+        assertTrue(poly.derivative(6).terms() == 0);
+        assertTrue(poly.equals(new Polynomial("3 5 4 4 5 3 6 2 1 1 9 0")));
+        Polynomial sparse = new Polynomial("1 1000 2 3");
+        assertTrue(sparse.derivative(2).equals(new Polynomial("999000 998 12 1")));
+        assertTrue(sparse.derivative(4).equals(new Polynomial("994010994000 996")));
+        try{
+            poly.derivative(-1);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    public void testIntegral(){
+        Polynomial p = new Polynomial("3 2 2 1 1 0");
+        assertTrue(p.integral(5).equals(new Polynomial("1 3 1 2 1 1 5 0")));
+        assertTrue(p.integral(0).derivative().equals(p));
+        Polynomial sparse = new Polynomial("1001 1000 -4 3");
+        assertTrue(sparse.integral(0).equals(new Polynomial("1 1001 -1 4")));
+        assertTrue(sparse.integral(2).derivative().equals(sparse));
+        // x^3 + x^2 + x from -1 to 2 is 8 + 4 + 2 - (-1 + 1 - 1) = 15
+        assertEquals(15, p.definiteIntegral(-1, 2), 1e-12);
+        assertEquals(-15, p.definiteIntegral(2, -1), 1e-12);
+        // x^1001 - x^4 from -1 to 1 is 0 - (-2)
+        assertEquals(2, sparse.definiteIntegral(-1, 1), 1e-12);
+        assertEquals(sparse.integral(0).evaluate(1.001) - sparse.integral(0).evaluate(0.5),
+                     sparse.definiteIntegral(0.5, 1.001), 1e-9);
+        assertTrue(new Polynomial("").integral(0).terms() == 0);
+        assertTrue(new Polynomial("").definiteIntegral(0, 1) == 0);
     }
     
+    public void testCompose(){
+        // (x^2 + 1) composed with (x - 1) is x^2 - 2x + 2
+        Polynomial p = new Polynomial("1 2 1 0");
+        assertTrue(p.compose(new Polynomial("1 1 -1 0")).equals(new Polynomial("1 2 -2 1 2 0")));
+        assertTrue(p.compose(new Polynomial("3 0")).equals(new Polynomial("10 0")));
+        assertTrue(p.compose(new Polynomial("")).equals(new Polynomial("1 0")));
+        assertTrue(new Polynomial("").compose(p).terms() == 0);
+        assertTrue(new Polynomial("4 0").compose(p).equals(new Polynomial("4 0")));
+        // A monomial is substituted term by term, exactly.
+        Polynomial sparse = new Polynomial("2 1000 -1 3 5 0");
+        Polynomial substituted = new Polynomial("8 6 5 0");
+        substituted.addTerm(Math.pow(2, 1001), 2000);
+        assertTrue(sparse.compose(new Polynomial("-2 2")).equals(substituted));
+        // Against the expansion by Horner's scheme, small integers so that
+        // both are exact.
+        Random random = new Random(25);
+        Polynomial a = new Polynomial("");
+        Polynomial b = new Polynomial("");
+        for(int e = 0; e <= 16; e++){
+            a.addTerm(random.nextInt(5) + 1, e);
+        }
+        for(int e = 0; e <= 3; e++){
+            b.addTerm(random.nextInt(3) - 1.5, e);
+        }
+        Polynomial expected = new Polynomial("");
+        for(int e = 16; e >= 0; e--){
+            expected = Polynomial.product(expected, b);
+            expected.addTerm(a.getCoefficient(e), 0);
+        }
+        assertTrue(a.compose(b).equals(expected));
+        assertTrue(a.equals(a.compose(new Polynomial("1 1"))));
+        // Large enough for fast multiplication, so compared by value.
+        Polynomial big = new Polynomial("");
+        for(int e = 0; e <= 500; e++){
+            big.addTerm(random.nextDouble() - 0.5, e);
+        }
+        // Coefficients of q summing to less than one keep those of the
+        // result small, so rounding stays small too.
+        Polynomial q = new Polynomial("0.25 3 -0.25 2 0.125 1 0.25 0");
+        Polynomial composed = big.compose(q);
+        for(double x = -1; x <= 1; x += 0.125){
+            double y = big.evaluate(q.evaluate(x));
+            assertEquals(y, composed.evaluate(x), 1e-8 * Math.max(1, Math.abs(y)));
+        }
+        try{
+            new Polynomial("1 100000").compose(new Polynomial("1 100000"));
+            fail("Expected ArithmeticException not thrown.");
+        } catch (ArithmeticException e){
+        }
+    }
+
+    public void testShift(){
+        // (x + 1)^3 = x^3 + 3x^2 + 3x + 1
+        assertTrue(new Polynomial("1 3").shift(1).equals(new Polynomial("1 3 3 2 3 1 1 0")));
+        assertTrue(poly.shift(0).equals(poly));
+        assertTrue(poly.shift(2).shift(-2).equals(poly));
+        assertTrue(poly.equals(master));
+        assertTrue(poly.shift(-1.5).equals(poly.compose(new Polynomial("1 1 -1.5 0"))));
+        Polynomial sparse = new Polynomial("1 40 -3 7 2 0");
+        Polynomial shifted = sparse.shift(-0.25);
+        for(double x = 0; x <= 1; x += 0.125){
+            double y = sparse.evaluate(x - 0.25);
+            assertEquals(y, shifted.evaluate(x), 1e-12 * Math.max(1, Math.abs(y)));
+        }
+        assertTrue(new Polynomial("").shift(3).terms() == 0);
+    }
+
     public void testToString(){
         String check = "" + poly;
         assertTrue("String is: " + poly, check.equals("3.0x^5 + 4.0x^4 + 5.0x^3 + 6.0x^2 + x + 9.0"));
@@ -116,6 +220,11 @@ public class JUnitTestClass extends TestCase{
         Polynomial empty = new Polynomial("");
         check = empty.description();
         assertTrue("" + check, check.equals("0.0"));
+        // A constant alone is described by nothing, as it always was.
+        check = new Polynomial("7 0").description();
+        assertTrue("" + check, check.equals(""));
+        check = new Polynomial("7 0 2 1").description();
+        assertTrue("" + check, check.equals("constant term 7.0\nexponent 1, coefficient 2.0"));
     }
     
     public void testSum(){
@@ -153,4 +262,243 @@ public class JUnitTestClass extends TestCase{
             fail("Unexpected exception.");
         }
     }
-}
\ No newline at end of file
+    
+    public void testLayout(){
+        assertTrue(poly.isDense());
+        Polynomial sparse = new Polynomial("2 1000 -1 500 4 0");
+        assertFalse(sparse.isDense());
+        assertTrue(sparse.terms() == 3);
+        assertTrue(sparse.getCoefficient(500) == -1);
+        assertTrue(sparse.getCoefficient(499) == 0);
+        assertTrue(sparse.evaluate(1) == 5);
+        assertTrue(sparse.toString().equals("2.0x^1000 - x^500 + 4.0"));
+        assertTrue(sparse.derivative().equals(new Polynomial("2000 999 -500 499")));
+        for(int i = 1; i < 1000; i++){
+            sparse.addTerm(1, i);
+        }
+        assertTrue(sparse.isDense());
+        assertTrue(sparse.terms() == 1000);
+        for(int i = 1; i < 1000; i++){
+            sparse.deleteTerm(i);
+        }
+        assertFalse(sparse.isDense());
+        assertTrue(sparse.equals(new Polynomial("2 1000 4 0")));
+        Polynomial product = Polynomial.product(sparse, poly);
+        assertTrue(product.getCoefficient(1005) == 6);
+        assertTrue(product.getCoefficient(0) == 36);
+        assertTrue(product.terms() == 12);
+    }
+    
+    public void testEvaluateWithDerivative(){
+        double[] result = poly.evaluateWithDerivative(2);
+        assertTrue(result.length == 2);
+        assertTrue(result[0] == poly.evaluate(2));
+        assertTrue(result[1] == poly.derivative().evaluate(2));
+        Polynomial sparse = new Polynomial("2 40 -3 17 5 3");
+        assertFalse(sparse.isDense());
+        for(double x = -1.5; x <= 1.5; x += 0.25){
+            result = sparse.evaluateWithDerivative(x);
+            double value = 2*Math.pow(x, 40) - 3*Math.pow(x, 17) + 5*Math.pow(x, 3);
+            double slope = 80*Math.pow(x, 39) - 51*Math.pow(x, 16) + 15*x*x;
+            assertEquals(value, sparse.evaluate(x), 1e-9 * Math.max(1, Math.abs(value)));
+            assertEquals(value, result[0], 1e-9 * Math.max(1, Math.abs(value)));
+            assertEquals(slope, result[1], 1e-9 * Math.max(1, Math.abs(slope)));
+        }
+        result = new Polynomial("").evaluateWithDerivative(3);
+        assertTrue(result[0] == 0 && result[1] == 0);
+    }
+    
+    public void testBatchEvaluate(){
+        Polynomial sparse = new Polynomial("2 40 -3 17 5 3");
+        double[] xs = new double[1000];
+        for(int i = 0; i < xs.length; i++){
+            xs[i] = -2 + i * 0.004;
+        }
+        double[] out = new double[xs.length];
+        poly.evaluate(xs, out);
+        for(int i = 0; i < xs.length; i++){
+            assertTrue(out[i] == poly.evaluate(xs[i]));
+        }
+        DoubleBuffer in = DoubleBuffer.wrap(xs);
+        DoubleBuffer result = ByteBuffer.allocateDirect(8 * xs.length).asDoubleBuffer();
+        sparse.evaluate(in, result);
+        assertFalse(in.hasRemaining());
+        assertFalse(result.hasRemaining());
+        for(int i = 0; i < xs.length; i++){
+            assertTrue(result.get(i) == sparse.evaluate(xs[i]));
+        }
+        sparse.evaluate(xs, xs);
+        assertTrue(xs[0] == sparse.evaluate(-2));
+        try{
+            poly.evaluate(new double[2], new double[1]);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    public void testInPlace(){
+        Polynomial sparse = new Polynomial("2 1000 -1 500 4 0");
+        Polynomial sum = Polynomial.sum(poly, sparse);
+        assertTrue(sum.equals(new Polynomial("2 1000 -1 500 3 5 4 4 5 3 6 2 1 1 13 0")));
+        assertTrue(Polynomial.sum(sparse, poly).equals(sum));
+        assertTrue(Polynomial.sum(poly, new Polynomial("-3 5 -9 0")).toString()
+                   .equals("4.0x^4 + 5.0x^3 + 6.0x^2 + x"));
+        
+        poly.addInPlace(sparse);
+        assertTrue(poly.equals(sum));
+        poly.subtractInPlace(sparse);
+        assertTrue(poly.equals(master));
+        poly.addInPlace(poly);
+        assertTrue(poly.equals(Polynomial.sum(master, master)));
+        poly.scaleInPlace(0.5);
+        assertTrue(poly.equals(master));
+        sparse.subtractInPlace(sparse);
+        assertTrue(sparse.terms() == 0);
+        assertTrue(sparse.toString().equals("0.0"));
+        poly.scaleInPlace(0);
+        assertTrue(poly.terms() == 0);
+        try{
+            poly.addInPlace(null);
+            fail("Expected NPE not thrown.");
+        } catch (NullPointerException e){
+        }
+    }
+    
+    public void testSharedCopy(){
+        Polynomial copy = poly.sharedCopy();
+        assertTrue(copy.equals(poly));
+        assertFalse(copy == poly);
+        copy.addTerm(1, 7);
+        assertTrue(poly.equals(master));
+        assertTrue(copy.getCoefficient(7) == 1);
+        Polynomial sparse = new Polynomial("2 1000 -1 500 4 0");
+        copy = sparse.sharedCopy();
+        sparse.deleteTerm(500);
+        assertTrue(copy.getCoefficient(500) == -1);
+        assertTrue(sparse.getCoefficient(500) == 0);
+        copy.scaleInPlace(2);
+        assertTrue(sparse.getCoefficient(1000) == 2);
+        assertTrue(copy.getCoefficient(1000) == 4);
+        Polynomial deep = new Polynomial(copy);
+        copy.subtractInPlace(copy);
+        assertTrue(deep.terms() == 3);
+    }
+
+    public void testIndexed(){
+        // Random updates to a sparse polynomial, staged in one copy and
+        // applied directly to the other, must always agree.
+        Polynomial plain = new Polynomial("1 1000000");
+        Polynomial indexed = new Polynomial(plain);
+        indexed.setIndexed(true);
+        assertTrue(indexed.isIndexed());
+        assertFalse(plain.isIndexed());
+        Random random = new Random(22);
+        for(int i = 0; i < 20000; i++){
+            int exp = random.nextInt(5000) * 200;
+            if(random.nextInt(3) == 0){
+                assertTrue(plain.deleteTerm(exp) == indexed.deleteTerm(exp));
+            } else {
+                double coef = random.nextInt(7) - 3;
+                if(coef == 0){
+                    coef = 0.5;
+                }
+                plain.addTerm(coef, exp);
+                indexed.addTerm(coef, exp);
+            }
+            assertTrue(plain.terms() == indexed.terms());
+            assertTrue(plain.getCoefficient(exp) == indexed.getCoefficient(exp));
+            if(i % 1000 == 0){
+                assertTrue(indexed.equals(plain));
+                assertTrue(indexed.hashCode() == plain.hashCode());
+            }
+        }
+        assertEquals(plain.toString(), indexed.toString());
+        assertTrue(plain.evaluate(0.999) == indexed.evaluate(0.999));
+        assertFalse(indexed.isDense());
+        // Changes staged below the merge threshold are still seen by every
+        // operation, and cancelled terms disappear.
+        Polynomial small = new Polynomial("3 100 2 50 1 0");
+        small.setIndexed(true);
+        Polynomial copy = small.sharedCopy();
+        small.addTerm(-2, 50);
+        small.addTerm(4, 75);
+        assertTrue(small.terms() == 3);
+        assertTrue(small.getCoefficient(50) == 0);
+        assertTrue(small.getCoefficient(75) == 4);
+        assertTrue(copy.getCoefficient(50) == 2);
+        assertEquals("3.0x^100 + 4.0x^75 + 1.0", small.toString());
+        small.addTerm(1, 200);
+        assertTrue(Polynomial.sum(small, copy).equals(
+            new Polynomial("1 200 6 100 4 75 2 50 2 0")));
+        small.deleteTerm(200);
+        small.setIndexed(false);
+        assertTrue(small.equals(new Polynomial("3 100 4 75 1 0")));
+    }
+
+    public void testIndexedStrided(){
+        // Exponents a power of two apart must spread over the staging table
+        // like any others, so no lookup probes a long run of slots.
+        for(int stride : new int[] {16, 16384, 1 << 20}){
+            Polynomial indexed = new Polynomial("1 0");
+            indexed.setIndexed(true);
+            int n = Math.min(100000, Integer.MAX_VALUE / stride);
+            int longest = 0;
+            for(int i = 1; i <= n; i++){
+                indexed.addTerm(i, i * stride);
+                if(i % 1000 == 0){
+                    longest = Math.max(longest, indexed.longestPendingProbe());
+                }
+            }
+            assertTrue("stride " + stride + " probe " + longest, longest > 0 && longest <= 32);
+            for(int i = 1; i <= n; i += 97){
+                assertTrue(indexed.getCoefficient(i * stride) == i);
+            }
+            assertTrue(indexed.terms() == n + 1);
+        }
+    }
+
+    public void testAppendTo() throws IOException{
+        StringWriter out = new StringWriter();
+        poly.appendTo(out);
+        assertTrue(out.toString().equals(poly.toString()));
+        out = new StringWriter();
+        poly.describeTo(out);
+        assertTrue(out.toString().equals(poly.description()));
+        Polynomial sparse = new Polynomial("2 1000 -1 500 -2.5 3 4 0");
+        StringBuilder builder = new StringBuilder("p = ");
+        sparse.appendTo(builder);
+        assertTrue(builder.toString().equals("p = 2.0x^1000 - x^500 - 2.5x^3 + 4.0"));
+        builder.setLength(0);
+        sparse.describeTo(builder);
+        assertTrue(builder.toString().equals("constant term 4.0\nexponent 3, coefficient -2.5"
+                   + "\nexponent 500, coefficient -1.0\nexponent 1000, coefficient 2.0"));
+    }
+    
+    public void testCompile(){
+        Polynomial dense = new Polynomial("3 4 -2 2 1 1 0.5 0");
+        Polynomial sparse = new Polynomial("2 1000 -1 500 -2.5 3");
+        StringBuilder big = new StringBuilder();
+        for(int e = 0; e < 200; e++){
+            big.append(1.0 / (e + 1)).append(' ').append(e).append(' ');
+        }
+        Polynomial large = new Polynomial(big.toString());
+        Polynomial[] polys = {dense, sparse, large, new Polynomial("")};
+        for(Polynomial p : polys){
+            DoubleUnaryOperator f = p.compile();
+            assertSame(f, p.compile());
+            for(double x = -1.1; x <= 1.1; x += 0.1){
+                assertTrue(f.applyAsDouble(x) == p.evaluate(x));
+            }
+        }
+        // Changes drop the cached evaluator but leave old ones alone.
+        DoubleUnaryOperator before = dense.compile();
+        dense.addTerm(1, 0);
+        assertNotSame(before, dense.compile());
+        assertTrue(before.applyAsDouble(1) == 2.5);
+        assertTrue(dense.compile().applyAsDouble(1) == 3.5);
+        before = sparse.compile();
+        sparse.addInPlace(new Polynomial("1 2000"));
+        assertTrue(sparse.compile().applyAsDouble(1) == -0.5);
+        assertTrue(sparse.sharedCopy().compile().applyAsDouble(1) == -0.5);
+    }
+}
@@ -0,0 +1,312 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A polynomial with integer coefficients modulo a prime, for exact arithmetic.
+ * Coefficients are longs in the range [0, modulus), kept in a dense primitive
+ * array indexed by exponent, and every operation reduces its results, so
+ * nothing is ever rounded. Products are computed by number-theoretic
+ * transform, see NumberTheoreticTransform, and are exact at any size.
+ *
+ * The modulus is fixed when the polynomial is created and must be a prime no
+ * larger than MAX_MODULUS. Operations on two polynomials need equal moduli.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class ModPolynomial{
+
+    /**
+     * The largest modulus allowed, 2^31 - 1, which is prime. Products of two
+     * coefficients then fit in a long.
+     */
+    public static final long MAX_MODULUS = Integer.MAX_VALUE;
+
+    private final long modulus;
+    private long[] coeff; // coeff[e] is the coefficient of x^e
+    private int degree; // highest exponent present, -1 when there are no terms
+    private int terms;
+
+    /**
+     * Constructs the zero polynomial modulo a prime.
+     *
+     * @param modulus the prime modulus.
+     * @throws IllegalArgumentException if modulus is not a prime between 2
+     * and MAX_MODULUS.
+     */
+    public ModPolynomial(long modulus){
+        if(modulus < 2 || modulus > MAX_MODULUS
+           || !BigInteger.valueOf(modulus).isProbablePrime(64)){
+            throw new IllegalArgumentException("Modulus must be a prime below 2^31: " + modulus);
+        }
+        this.modulus = modulus;
+        coeff = new long[16];
+        degree = -1;
+    }
+
+    /**
+     * Constructs the reduction of a polynomial with integer coefficients
+     * modulo a prime. Terms whose coefficient is a multiple of the modulus
+     * vanish.
+     *
+     * @param p the polynomial to reduce.
+     * @param modulus the prime modulus.
+     * @throws NullPointerException if p is null.
+     * @throws IllegalArgumentException if modulus is not a prime between 2
+     * and MAX_MODULUS, or a coefficient of p is not an integer in the range
+     * of a long.
+     */
+    public ModPolynomial(Polynomial p, long modulus){
+        this(modulus);
+        int[] exp = new int[p.terms()];
+        double[] c = new double[p.terms()];
+        p.copyTerms(exp, c);
+        if(exp.length > 0){
+            coeff = new long[exp[0] + 1];
+        }
+        for(int i = 0; i < exp.length; i++){
+            // Only whole numbers below 2^63 in magnitude convert exactly.
+            if(!(Math.abs(c[i]) < 0x1p63) || c[i] != Math.rint(c[i])){
+                throw new IllegalArgumentException("Not an integer coefficient: " + c[i]);
+            }
+            coeff[exp[i]] = Math.floorMod((long)c[i], modulus);
+        }
+        count();
+    }
+
+    private ModPolynomial(long modulus, long[] coeff){
+        // Takes ownership of reduced coefficients, modulus already checked.
+        this.modulus = modulus;
+        this.coeff = coeff;
+        count();
+    }
+
+    private void count(){
+        degree = coeff.length - 1;
+        while(degree >= 0 && coeff[degree] == 0){
+            degree--;
+        }
+        terms = 0;
+        for(int e = 0; e <= degree; e++){
+            if(coeff[e] != 0){
+                terms++;
+            }
+        }
+    }
+
+    /**
+     * Returns the modulus of this polynomial.
+     *
+     * @return the prime modulus.
+     */
+    public long modulus(){
+        return modulus;
+    }
+
+    /**
+     * Returns the number of terms in this expression.
+     *
+     * @return the number of terms in this expression.
+     */
+    public int terms(){
+        return terms;
+    }
+
+    /**
+     * Adds a term to the polynomial expression, reducing its coefficient.
+     *
+     * @param coef the coefficient of the new term, any long.
+     * @param exp the exponent of the new term.
+     * @throws IllegalArgumentException if a negative exponent value or a
+     * coefficient which is a multiple of the modulus is passed.
+     */
+    public void addTerm(long coef, int exp){
+        if(exp < 0) throw new IllegalArgumentException();
+        long c = Math.floorMod(coef, modulus);
+        if(c == 0) throw new IllegalArgumentException();
+        if(exp >= coeff.length){
+            coeff = Arrays.copyOf(coeff, Math.max(exp + 1, coeff.length * 2));
+        }
+        long old = coeff[exp];
+        long sum = old + c;
+        coeff[exp] = sum >= modulus ? sum - modulus : sum;
+        if(old == 0){
+            terms++;
+            degree = Math.max(degree, exp);
+        } else if(coeff[exp] == 0){
+            terms--;
+            while(degree >= 0 && coeff[degree] == 0){
+                degree--;
+            }
+        }
+    }
+
+    /**
+     * Returns the coefficient of the term with the given exponent.
+     *
+     * @param exp the exponent of the term.
+     * @return the coefficient in [0, modulus), 0 if there is no such term.
+     */
+    public long getCoefficient(int exp){
+        return exp >= 0 && exp <= degree ? coeff[exp] : 0;
+    }
+
+    /**
+     * Plugs in a value for x and evaluates the expression by Horner's scheme.
+     *
+     * @param x the x value, any long.
+     * @return the value modulo the modulus, in [0, modulus).
+     */
+    public long evaluate(long x){
+        long r = Math.floorMod(x, modulus);
+        long result = 0;
+        for(int e = degree; e >= 0; e--){
+            result = (result * r + coeff[e]) % modulus;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the derivative of this polynomial. Terms whose exponent is a
+     * multiple of the modulus drop out.
+     *
+     * @return the derivative, with the same modulus.
+     */
+    public ModPolynomial derivative(){
+        long[] d = new long[Math.max(0, degree)];
+        for(int e = 1; e <= degree; e++){
+            d[e - 1] = coeff[e] * (e % modulus) % modulus;
+        }
+        return new ModPolynomial(modulus, d);
+    }
+
+    /**
+     * Static method which adds two polynomials.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the sum.
+     * @throws NullPointerException if either polynomial is null.
+     * @throws IllegalArgumentException if the moduli differ.
+     */
+    public static ModPolynomial sum(ModPolynomial a, ModPolynomial b){
+        long m = checkModuli(a, b);
+        long[] c = new long[Math.max(a.degree, b.degree) + 1];
+        for(int e = 0; e <= a.degree; e++){
+            c[e] = a.coeff[e];
+        }
+        for(int e = 0; e <= b.degree; e++){
+            long sum = c[e] + b.coeff[e];
+            c[e] = sum >= m ? sum - m : sum;
+        }
+        return new ModPolynomial(m, c);
+    }
+
+    /**
+     * Static method which multiplies two polynomials exactly, by
+     * number-theoretic transform once both are large.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the product.
+     * @throws NullPointerException if either polynomial is null.
+     * @throws IllegalArgumentException if the moduli differ.
+     */
+    public static ModPolynomial product(ModPolynomial a, ModPolynomial b){
+        long m = checkModuli(a, b);
+        if(a.terms == 0 || b.terms == 0){
+            return new ModPolynomial(m, new long[0]);
+        }
+        return new ModPolynomial(m, NumberTheoreticTransform.multiply(
+            a.coeff, a.degree + 1, b.coeff, b.degree + 1, m));
+    }
+
+    private static long checkModuli(ModPolynomial a, ModPolynomial b){
+        if(a.modulus != b.modulus){
+            throw new IllegalArgumentException("Moduli differ: " + a.modulus + " and " + b.modulus);
+        }
+        return a.modulus;
+    }
+
+    /**
+     * Returns this polynomial as a Polynomial, each coefficient the double
+     * equal to its representative in [0, modulus).
+     *
+     * @return the equivalent Polynomial.
+     */
+    public Polynomial toPolynomial(){
+        double[] d = new double[degree + 1];
+        for(int e = 0; e <= degree; e++){
+            d[e] = coeff[e];
+        }
+        return Polynomial.fromDense(d);
+    }
+
+    /**
+     * Compares two modular polynomials, which are equal if their moduli and
+     * all of their terms match.
+     *
+     * @param o the object to compare with.
+     * @return true if o is an equal ModPolynomial.
+     */
+    public boolean equals(Object o){
+        if(!(o instanceof ModPolynomial)){
+            return false;
+        }
+        ModPolynomial test = (ModPolynomial)o;
+        if(modulus != test.modulus || degree != test.degree){
+            return false;
+        }
+        for(int e = 0; e <= degree; e++){
+            if(coeff[e] != test.coeff[e]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code consistent with equals.
+     *
+     * @return the hash code of this polynomial.
+     */
+    public int hashCode(){
+        int hash = Long.hashCode(modulus);
+        for(int e = degree; e >= 0; e--){
+            if(coeff[e] != 0){
+                hash = 31 * (31 * hash + e) + Long.hashCode(coeff[e]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a String representation of this polynomial in descending order
+     * of degree followed by the modulus, e.g. "3x^2 + x + 4 (mod 7)".
+     *
+     * @return a String representation of this polynomial.
+     */
+    public String toString(){
+        StringBuilder string = new StringBuilder();
+        if(terms == 0){
+            string.append("0");
+        }
+        for(int e = degree; e >= 0; e--){
+            if(coeff[e] == 0){
+                continue;
+            }
+            if(e < degree){
+                string.append(" + ");
+            }
+            if(coeff[e] != 1 || e == 0){
+                string.append(coeff[e]);
+            }
+            if(e > 1){
+                string.append("x^").append(e);
+            } else if(e == 1){
+                string.append("x");
+            }
+        }
+        return string.append(" (mod ").append(modulus).append(")").toString();
+    }
+}
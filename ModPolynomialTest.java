@@ -0,0 +1,88 @@
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class ModPolynomialTest extends TestCase{
+    
+    private long[] schoolbook(ModPolynomial a, ModPolynomial b, int degree){
+        long m = a.modulus();
+        long[] c = new long[degree + 1];
+        for(int i = 0; i <= degree; i++){
+            for(int j = 0; j <= degree - i; j++){
+                c[i + j] = (c[i + j] + a.getCoefficient(i) * b.getCoefficient(j)) % m;
+            }
+        }
+        return c;
+    }
+    
+    public void testBasics(){
+        ModPolynomial p = new ModPolynomial(7);
+        p.addTerm(10, 2);
+        p.addTerm(-1, 0);
+        assertTrue(p.getCoefficient(2) == 3);
+        assertTrue(p.getCoefficient(0) == 6);
+        assertTrue(p.terms() == 2);
+        assertEquals("3x^2 + 6 (mod 7)", p.toString());
+        // 3 * 25 + 6 = 81 = 4 mod 7
+        assertTrue(p.evaluate(5) == 4);
+        assertTrue(p.evaluate(-2) == 4);
+        p.addTerm(4, 2);
+        assertTrue(p.terms() == 1);
+        assertTrue(p.getCoefficient(2) == 0);
+        try{
+            p.addTerm(14, 1);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            new ModPolynomial(12);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            ModPolynomial.sum(p, new ModPolynomial(5));
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    public void testSumAndDerivative(){
+        ModPolynomial a = new ModPolynomial(new Polynomial("5 3 -2 1 1 0"), 5);
+        assertEquals("3x + 1 (mod 5)", a.toString());
+        ModPolynomial b = new ModPolynomial(new Polynomial("2 1 4 0"), 5);
+        assertEquals("0 (mod 5)", ModPolynomial.sum(a, b).toString());
+        // d/dx x^5 + 2x^2 = 5x^4 + 4x = 4x mod 5
+        ModPolynomial c = new ModPolynomial(new Polynomial("1 5 2 2"), 5);
+        assertEquals("4x (mod 5)", c.derivative().toString());
+        try{
+            new ModPolynomial(new Polynomial("0.5 1"), 5);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    public void testConversion(){
+        Polynomial p = new Polynomial("3 4 1 2 7 0");
+        ModPolynomial mod = new ModPolynomial(p, 1000003);
+        assertTrue(mod.toPolynomial().equals(p));
+        assertTrue(new ModPolynomial(mod.toPolynomial(), 1000003).equals(mod));
+    }
+    
+    public void testProduct(){
+        Random random = new Random(143);
+        // A transform-friendly prime, a general one and the largest allowed.
+        long[] moduli = {998244353, 1000000007, ModPolynomial.MAX_MODULUS};
+        for(long m : moduli){
+            for(int degree : new int[] {5, 100, 1500}){
+                ModPolynomial a = PolynomialFixtures.randomMod(random, degree, m);
+                ModPolynomial b = PolynomialFixtures.randomMod(random, degree, m);
+                ModPolynomial c = ModPolynomial.product(a, b);
+                long[] expected = schoolbook(a, b, 2 * degree);
+                for(int e = 0; e <= 2 * degree; e++){
+                    assertTrue(m + " " + degree + " " + e, c.getCoefficient(e) == expected[e]);
+                }
+            }
+        }
+        ModPolynomial a = PolynomialFixtures.randomMod(random, 40, 7);
+        assertTrue(ModPolynomial.product(a, new ModPolynomial(7)).terms() == 0);
+    }
+}
@@ -0,0 +1,678 @@
+import java.util.Arrays;
+
+/**
+ * A sparse polynomial in several variables x1 ... xn. Each monomial's
+ * exponents are packed into the bit fields of a long, x1 in the highest
+ * field, and the terms are kept in a primitive open-addressing map from
+ * packed monomial to coefficient, so lookup, insertion and deletion take
+ * O(1) time and no object is allocated per term.
+ *
+ * Comparing packed monomials as longs orders them lexicographically, with
+ * x1 most significant, and adding them multiplies the monomials. Terms are
+ * listed, evaluated and printed in descending lexicographic order, so
+ * results do not depend on the order terms were added.
+ *
+ * The 63 low bits of the long are shared equally between the variables, up
+ * to 31 bits each, which bounds the exponent of each variable, see
+ * maxExponent. A polynomial in one variable allows every exponent a
+ * Polynomial does, and the two convert into each other.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class MultivariatePolynomial{
+
+    /**
+     * The largest number of variables, each then limited to exponent 1.
+     */
+    public static final int MAX_VARIABLES = 63;
+
+    private static final long EMPTY = -1L; // never a monomial, the sign bit is unused
+    // Number of points evaluated together by evaluateAll.
+    private static final int BLOCK = 256;
+
+    private final int variables;
+    private final int bits; // width of each exponent field
+    private final long mask; // the largest exponent, also the mask of one field
+    private long[] keys; // packed monomials, EMPTY in unused slots
+    private double[] values; // coefficient of each monomial
+    private int size;
+    private long[] sortedKeys; // terms in descending order, dropped on change
+    private double[] sortedValues;
+
+    /**
+     * Constructs the zero polynomial in the given number of variables.
+     *
+     * @param variables the number of variables.
+     * @throws IllegalArgumentException if variables is not between 1 and
+     * MAX_VARIABLES.
+     */
+    public MultivariatePolynomial(int variables){
+        if(variables < 1 || variables > MAX_VARIABLES){
+            throw new IllegalArgumentException("Variables must be between 1 and "
+                                               + MAX_VARIABLES + ": " + variables);
+        }
+        this.variables = variables;
+        bits = Math.min(31, 63 / variables);
+        mask = (1L << bits) - 1;
+        keys = new long[16];
+        values = new double[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Constructor for class MultivariatePolynomial. Creates a deep copy of a
+     * polynomial, does not modify original.
+     *
+     * @param p the polynomial to be copied.
+     * @throws NullPointerException if p is null.
+     */
+    public MultivariatePolynomial(MultivariatePolynomial p){
+        variables = p.variables;
+        bits = p.bits;
+        mask = p.mask;
+        keys = p.keys.clone();
+        values = p.values.clone();
+        size = p.size;
+        sortedKeys = p.sortedKeys;
+        sortedValues = p.sortedValues;
+    }
+
+    /**
+     * Converts a polynomial into a multivariate polynomial in one variable.
+     *
+     * @param p the polynomial to convert.
+     * @return the equal polynomial in one variable.
+     * @throws NullPointerException if p is null.
+     */
+    public static MultivariatePolynomial of(Polynomial p){
+        return of(p, 1, 0);
+    }
+
+    /**
+     * Converts a polynomial into a multivariate polynomial in which p's x is
+     * one of several variables and the others do not appear.
+     *
+     * @param p the polynomial to convert.
+     * @param variables the number of variables of the result.
+     * @param variable the index of the variable standing for x, 0 for x1.
+     * @return the new polynomial.
+     * @throws NullPointerException if p is null.
+     * @throws IllegalArgumentException if variables is out of range, variable
+     * is not below it, or the degree of p is above maxExponent.
+     */
+    public static MultivariatePolynomial of(Polynomial p, int variables, int variable){
+        MultivariatePolynomial result = new MultivariatePolynomial(variables);
+        result.checkVariable(variable);
+        int[] exp = new int[p.terms()];
+        double[] coeff = new double[exp.length];
+        p.copyTerms(exp, coeff);
+        if(exp.length > 0 && exp[0] > result.mask){
+            throw new IllegalArgumentException("Exponent too large: " + exp[0]);
+        }
+        for(int i = 0; i < exp.length; i++){
+            result.add((long)exp[i] << result.shift(variable), coeff[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Converts a polynomial in one variable into a Polynomial.
+     *
+     * @return the equal Polynomial.
+     * @throws IllegalStateException if this polynomial has more than one
+     * variable.
+     */
+    public Polynomial toPolynomial(){
+        if(variables != 1) throw new IllegalStateException("Not univariate.");
+        sort();
+        int[] exp = new int[sortedKeys.length];
+        for(int i = 0; i < exp.length; i++){
+            exp[i] = (int)sortedKeys[i];
+        }
+        return Polynomial.fromSparse(exp, sortedValues.clone(), exp.length);
+    }
+
+    /**
+     * Returns the number of variables.
+     *
+     * @return the number of variables.
+     */
+    public int variables(){
+        return variables;
+    }
+
+    /**
+     * Returns the largest exponent any one variable may have, 2^31 - 1 with
+     * one or two variables and less with more.
+     *
+     * @return the largest exponent.
+     */
+    public int maxExponent(){
+        return (int)mask;
+    }
+
+    /**
+     * Returns the number of terms in this expression.
+     *
+     * @return the number of terms in this expression.
+     */
+    public int terms(){
+        return size;
+    }
+
+    private int shift(int variable){
+        return (variables - 1 - variable) * bits;
+    }
+
+    private int exponent(long key, int variable){
+        return (int)((key >>> shift(variable)) & mask);
+    }
+
+    private void checkVariable(int variable){
+        if(variable < 0 || variable >= variables){
+            throw new IllegalArgumentException("No variable " + variable);
+        }
+    }
+
+    private long pack(int[] exponents){
+        if(exponents.length != variables){
+            throw new IllegalArgumentException("Expected " + variables + " exponents.");
+        }
+        long key = 0;
+        for(int v = 0; v < variables; v++){
+            if(exponents[v] < 0 || exponents[v] > mask){
+                throw new IllegalArgumentException("Bad exponent " + exponents[v]);
+            }
+            key |= (long)exponents[v] << shift(v);
+        }
+        return key;
+    }
+
+    /**
+     * Adds a term to the polynomial expression.
+     *
+     * @param coef the coefficient of the new term.
+     * @param exponents the exponent of each variable, in order.
+     * @throws IllegalArgumentException if a zero coefficient, the wrong number
+     * of exponents, or a negative exponent or one above maxExponent is passed.
+     */
+    public void addTerm(double coef, int... exponents){
+        if(coef == 0) throw new IllegalArgumentException();
+        add(pack(exponents), coef);
+    }
+
+    /**
+     * Deletes a term from the polynomial expression and returns that term's
+     * coefficient.
+     *
+     * @param exponents the exponent of each variable of the term to delete.
+     * @return the coefficient of the deleted term, 0.0 if that term does not
+     * exist.
+     * @throws IllegalArgumentException if the wrong number of exponents, or a
+     * negative exponent or one above maxExponent is passed.
+     */
+    public double deleteTerm(int... exponents){
+        int i = slot(pack(exponents));
+        if(keys[i] == EMPTY){
+            return 0.0;
+        }
+        double coef = values[i];
+        removeAt(i);
+        sortedKeys = null;
+        sortedValues = null;
+        return coef;
+    }
+
+    /**
+     * Returns the coefficient value of the specified term.
+     *
+     * @param exponents the exponent of each variable of the term.
+     * @return the coefficient of the specified term, 0.0 if there is none.
+     * @throws IllegalArgumentException if the wrong number of exponents, or a
+     * negative exponent or one above maxExponent is passed.
+     */
+    public double getCoefficient(int... exponents){
+        int i = slot(pack(exponents));
+        return keys[i] == EMPTY ? 0.0 : values[i];
+    }
+
+    private int home(long key){
+        // Fibonacci hashing. The slot comes from the top bits of the product,
+        // which every bit of the key reaches; the low bits only depend on the
+        // low fields, so monomials differing in x1 alone would share them.
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    private int slot(long key){
+        // Linear probing. Returns the slot holding key, or the empty slot
+        // where it belongs.
+        int m = keys.length - 1;
+        int i = home(key);
+        while(keys[i] != EMPTY && keys[i] != key){
+            i = (i + 1) & m;
+        }
+        return i;
+    }
+
+    private void add(long key, double coef){
+        int i = slot(key);
+        if(keys[i] == EMPTY){
+            if(coef == 0){
+                return;
+            }
+            keys[i] = key;
+            values[i] = coef;
+            // Kept at most half full, so probes stay short.
+            if(++size * 2 > keys.length){
+                grow();
+            }
+        } else {
+            values[i] += coef;
+            // A coefficient which has cancelled out is no longer a term.
+            if(values[i] == 0){
+                removeAt(i);
+            }
+        }
+        sortedKeys = null;
+        sortedValues = null;
+    }
+
+    private void removeAt(int i){
+        // Backward shift deletion: entries after the hole which could live in
+        // it move back, so no probe sequence is broken and no tombstones are
+        // needed.
+        int m = keys.length - 1;
+        int j = i;
+        while(true){
+            j = (j + 1) & m;
+            if(keys[j] == EMPTY){
+                break;
+            }
+            int home = home(keys[j]);
+            if(((j - home) & m) >= ((j - i) & m)){
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        values[i] = 0;
+        size--;
+    }
+
+    private void grow(){
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new double[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for(int j = 0; j < oldKeys.length; j++){
+            if(oldKeys[j] != EMPTY){
+                int i = slot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Returns the most slots any lookup of a present term has to probe.
+     */
+    int longestProbe(){
+        int m = keys.length - 1;
+        int longest = 0;
+        for(int j = 0; j < keys.length; j++){
+            if(keys[j] != EMPTY){
+                longest = Math.max(longest, ((j - home(keys[j])) & m) + 1);
+            }
+        }
+        return longest;
+    }
+
+    private void sort(){
+        // Caches the terms in descending order of monomial.
+        if(sortedKeys != null){
+            return;
+        }
+        long[] k = new long[size];
+        for(int j = 0, n = 0; j < keys.length; j++){
+            if(keys[j] != EMPTY){
+                k[n++] = keys[j];
+            }
+        }
+        Arrays.sort(k);
+        for(int lo = 0, hi = size - 1; lo < hi; lo++, hi--){
+            long t = k[lo];
+            k[lo] = k[hi];
+            k[hi] = t;
+        }
+        double[] v = new double[size];
+        for(int i = 0; i < size; i++){
+            v[i] = values[slot(k[i])];
+        }
+        sortedKeys = k;
+        sortedValues = v;
+    }
+
+    /**
+     * Plugs in a value for each variable and evaluates the expression, term
+     * by term in descending order.
+     *
+     * @param x the value of each variable, in order.
+     * @return the evaluated expression's numerical value.
+     * @throws IllegalArgumentException if the number of values is not the
+     * number of variables.
+     */
+    public double evaluate(double... x){
+        if(x.length != variables) throw new IllegalArgumentException();
+        sort();
+        double result = 0.0;
+        for(int i = 0; i < sortedKeys.length; i++){
+            double term = sortedValues[i];
+            for(int v = 0; v < variables; v++){
+                int e = exponent(sortedKeys[i], v);
+                if(e != 0){
+                    term *= Polynomial.power(x[v], e);
+                }
+            }
+            result += term;
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the expression at many points. Points are processed in
+     * blocks, with each term applied across the whole block in a simple loop
+     * over the points. The arithmetic per point is the same as
+     * evaluate(double...), so the results are identical.
+     *
+     * @param points the points, each holding the value of every variable.
+     * @return an array holding the value at points[i] at index i.
+     * @throws NullPointerException if points or any point is null.
+     * @throws IllegalArgumentException if a point does not hold one value per
+     * variable.
+     */
+    public double[] evaluateAll(double[][] points){
+        for(double[] point : points){
+            if(point.length != variables) throw new IllegalArgumentException();
+        }
+        sort();
+        double[] out = new double[points.length];
+        double[][] columns = new double[variables][Math.min(BLOCK, points.length)];
+        double[] term = new double[columns[0].length];
+        for(int start = 0; start < points.length; start += BLOCK){
+            int n = Math.min(BLOCK, points.length - start);
+            for(int j = 0; j < n; j++){
+                for(int v = 0; v < variables; v++){
+                    columns[v][j] = points[start + j][v];
+                }
+            }
+            for(int i = 0; i < sortedKeys.length; i++){
+                Arrays.fill(term, 0, n, sortedValues[i]);
+                for(int v = 0; v < variables; v++){
+                    int e = exponent(sortedKeys[i], v);
+                    if(e != 0){
+                        double[] column = columns[v];
+                        for(int j = 0; j < n; j++){
+                            term[j] *= Polynomial.power(column[j], e);
+                        }
+                    }
+                }
+                for(int j = 0; j < n; j++){
+                    out[start + j] += term[j];
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Calculates the partial derivative with respect to one variable. This
+     * polynomial is not modified.
+     *
+     * @param variable the index of the variable, 0 for x1.
+     * @return the partial derivative.
+     * @throws IllegalArgumentException if there is no such variable.
+     */
+    public MultivariatePolynomial derivative(int variable){
+        checkVariable(variable);
+        MultivariatePolynomial result = new MultivariatePolynomial(variables);
+        long one = 1L << shift(variable);
+        for(int j = 0; j < keys.length; j++){
+            if(keys[j] != EMPTY){
+                int e = exponent(keys[j], variable);
+                if(e != 0){
+                    result.add(keys[j] - one, values[j] * e);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Static method which will take two polynomials and find their sum.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the new polynomial representing the sum of the other two.
+     * @throws NullPointerException if either polynomial is null.
+     * @throws IllegalArgumentException if the numbers of variables differ.
+     */
+    public static MultivariatePolynomial sum(MultivariatePolynomial a, MultivariatePolynomial b){
+        checkVariables(a, b);
+        MultivariatePolynomial result = new MultivariatePolynomial(a);
+        for(int j = 0; j < b.keys.length; j++){
+            if(b.keys[j] != EMPTY){
+                result.add(b.keys[j], b.values[j]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Static method which will take two polynomials and find their product.
+     * Each term of the smaller times all of the other is a stream of terms
+     * in descending order, and a heap over the heads of the streams yields
+     * the product's terms in descending order, so equal monomials arrive
+     * together and are merged without any lookups. Takes
+     * O(nm log min(n, m)) time for n and m terms.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the new polynomial representing the product of the other two.
+     * @throws NullPointerException if either polynomial is null.
+     * @throws IllegalArgumentException if the numbers of variables differ.
+     * @throws ArithmeticException if an exponent of the product could exceed
+     * maxExponent.
+     */
+    public static MultivariatePolynomial product(MultivariatePolynomial a,
+                                                 MultivariatePolynomial b){
+        checkVariables(a, b);
+        if(a.size > b.size){
+            MultivariatePolynomial t = a; a = b; b = t;
+        }
+        MultivariatePolynomial result = new MultivariatePolynomial(a.variables);
+        if(a.size == 0){
+            return result;
+        }
+        // The fields of a sum of packed monomials are the sums of the fields
+        // as long as none overflows, which the highest exponents decide.
+        int[] maxA = a.maxExponents();
+        int[] maxB = b.maxExponents();
+        for(int v = 0; v < a.variables; v++){
+            if((long)maxA[v] + maxB[v] > a.mask) throw new ArithmeticException("Exponent overflow.");
+        }
+        a.sort();
+        b.sort();
+        long[] keyA = a.sortedKeys;
+        double[] coeffA = a.sortedValues;
+        long[] keyB = b.sortedKeys;
+        double[] coeffB = b.sortedValues;
+        int n = keyA.length;
+        int[] next = new int[n]; // position in b of the head of each stream
+        int[] heap = new int[n]; // stream indices, largest head monomial on top
+        for(int i = 0; i < n; i++){
+            heap[i] = i;
+        }
+        int size = n; // heads are already ordered since keyA is descending
+        long[] key = new long[(int)Math.min((long)n * keyB.length, 1024)];
+        double[] coeff = new double[key.length];
+        int count = 0;
+        while(size > 0){
+            int s = heap[0];
+            long k = keyA[s] + keyB[next[s]];
+            double c = coeffA[s] * coeffB[next[s]];
+            if(count > 0 && key[count - 1] == k){
+                coeff[count - 1] += c;
+            } else {
+                if(count > 0 && coeff[count - 1] == 0){
+                    count--;
+                }
+                if(count == key.length){
+                    key = Arrays.copyOf(key, count * 2);
+                    coeff = Arrays.copyOf(coeff, count * 2);
+                }
+                key[count] = k;
+                coeff[count] = c;
+                count++;
+            }
+            if(++next[s] == keyB.length){
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, size, next, keyA, keyB);
+        }
+        if(count > 0 && coeff[count - 1] == 0){
+            count--;
+        }
+        for(int i = 0; i < count; i++){
+            result.add(key[i], coeff[i]);
+        }
+        // Already in descending order.
+        result.sortedKeys = Arrays.copyOf(key, count);
+        result.sortedValues = Arrays.copyOf(coeff, count);
+        return result;
+    }
+
+    private static void siftDown(int[] heap, int size, int[] next, long[] keyA,
+                                 long[] keyB){
+        int i = 0;
+        while(true){
+            int largest = i;
+            for(int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++){
+                if(keyA[heap[child]] + keyB[next[heap[child]]] >
+                   keyA[heap[largest]] + keyB[next[heap[largest]]]){
+                    largest = child;
+                }
+            }
+            if(largest == i){
+                return;
+            }
+            int t = heap[i];
+            heap[i] = heap[largest];
+            heap[largest] = t;
+            i = largest;
+        }
+    }
+
+    private int[] maxExponents(){
+        int[] max = new int[variables];
+        for(long key : keys){
+            if(key != EMPTY){
+                for(int v = 0; v < variables; v++){
+                    max[v] = Math.max(max[v], exponent(key, v));
+                }
+            }
+        }
+        return max;
+    }
+
+    private static void checkVariables(MultivariatePolynomial a, MultivariatePolynomial b){
+        if(a.variables != b.variables){
+            throw new IllegalArgumentException("Variables differ: " + a.variables
+                                               + " and " + b.variables);
+        }
+    }
+
+    /**
+     * Checks for content equality.
+     *
+     * @param o the object to be compared for equality.
+     * @return true if o is a polynomial in as many variables with the same
+     * terms.
+     */
+    public boolean equals(Object o){
+        if(!(o instanceof MultivariatePolynomial)){
+            return false;
+        }
+        MultivariatePolynomial test = (MultivariatePolynomial)o;
+        if(variables != test.variables || size != test.size){
+            return false;
+        }
+        for(int j = 0; j < keys.length; j++){
+            if(keys[j] != EMPTY){
+                int i = test.slot(keys[j]);
+                if(test.keys[i] == EMPTY || test.values[i] != values[j]){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code consistent with equals, whatever order the terms
+     * were added in.
+     *
+     * @return the hash code of this polynomial.
+     */
+    public int hashCode(){
+        int hash = variables;
+        for(int j = 0; j < keys.length; j++){
+            if(keys[j] != EMPTY){
+                hash += Long.hashCode(keys[j]) * 31 + Double.hashCode(values[j]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a String representation of this polynomial in descending
+     * lexicographic order, e.g. "3.0x1^2x2 - x2^3 + 4.0". A polynomial in
+     * one variable calls it x.
+     *
+     * @return a string representation of this polynomial.
+     */
+    public String toString(){
+        if(size == 0){
+            return "0.0";
+        }
+        sort();
+        StringBuilder string = new StringBuilder();
+        for(int i = 0; i < sortedKeys.length; i++){
+            double coef = sortedValues[i];
+            if(i > 0){
+                string.append(coef < 0 ? " - " : " + ");
+            } else if(coef < 0){
+                string.append("-");
+            }
+            double magnitude = Math.abs(coef);
+            if(magnitude != 1 || sortedKeys[i] == 0){
+                string.append(magnitude);
+            }
+            for(int v = 0; v < variables; v++){
+                int e = exponent(sortedKeys[i], v);
+                if(e != 0){
+                    string.append("x");
+                    if(variables > 1){
+                        string.append(v + 1);
+                    }
+                    if(e > 1){
+                        string.append("^").append(e);
+                    }
+                }
+            }
+        }
+        return string.toString();
+    }
+}
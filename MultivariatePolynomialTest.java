@@ -0,0 +1,168 @@
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class MultivariatePolynomialTest extends TestCase{
+    
+    public void testTerms(){
+        MultivariatePolynomial p = new MultivariatePolynomial(3);
+        assertTrue(p.maxExponent() == (1 << 21) - 1);
+        p.addTerm(3, 2, 1, 0);
+        p.addTerm(-1, 0, 3, 0);
+        p.addTerm(4, 0, 0, 0);
+        p.addTerm(2, 2, 1, 0);
+        assertTrue(p.terms() == 3);
+        assertTrue(p.getCoefficient(2, 1, 0) == 5);
+        assertTrue(p.getCoefficient(1, 1, 1) == 0);
+        assertEquals("5.0x1^2x2 - x2^3 + 4.0", p.toString());
+        assertTrue(p.deleteTerm(0, 3, 0) == -1);
+        assertTrue(p.deleteTerm(0, 3, 0) == 0);
+        p.addTerm(-4, 0, 0, 0);
+        assertTrue(p.terms() == 1);
+        try{
+            p.addTerm(1, 1, 2);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            p.addTerm(1, 0, 1 << 21, 0);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            new MultivariatePolynomial(64);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    public void testDeleteMany(){
+        // Deleting from a crowded table must not lose terms further along
+        // the same probe sequence.
+        MultivariatePolynomial p = new MultivariatePolynomial(2);
+        for(int i = 0; i < 1000; i++){
+            p.addTerm(i + 1, i % 37, i / 37);
+        }
+        for(int i = 0; i < 1000; i += 2){
+            assertTrue(p.deleteTerm(i % 37, i / 37) == i + 1);
+        }
+        assertTrue(p.terms() == 500);
+        for(int i = 0; i < 1000; i++){
+            assertTrue(p.getCoefficient(i % 37, i / 37) == (i % 2 == 0 ? 0 : i + 1));
+        }
+    }
+    
+    public void testStrided(){
+        // Monomials differing only in x1 differ only in the top bits of the
+        // packed key, which must still spread them over the table.
+        for(int v = 0; v < 3; v++){
+            MultivariatePolynomial p = new MultivariatePolynomial(3);
+            int[] exp = new int[3];
+            for(int i = 0; i < 100000; i++){
+                exp[v] = i;
+                p.addTerm(i + 1, exp);
+            }
+            assertTrue(p.terms() == 100000);
+            assertTrue("Probe " + p.longestProbe(), p.longestProbe() <= 64);
+            for(int i = 0; i < 100000; i += 997){
+                exp[v] = i;
+                assertTrue(p.getCoefficient(exp) == i + 1);
+            }
+        }
+    }
+    
+    public void testArithmetic(){
+        // (x + y)(x - y) = x^2 - y^2
+        MultivariatePolynomial a = new MultivariatePolynomial(2);
+        a.addTerm(1, 1, 0);
+        a.addTerm(1, 0, 1);
+        MultivariatePolynomial b = new MultivariatePolynomial(2);
+        b.addTerm(1, 1, 0);
+        b.addTerm(-1, 0, 1);
+        MultivariatePolynomial product = MultivariatePolynomial.product(a, b);
+        assertEquals("x1^2 - x2^2", product.toString());
+        assertEquals("2.0x1", MultivariatePolynomial.sum(a, b).toString());
+        assertEquals("2.0x1", product.derivative(0).toString());
+        assertEquals("-2.0x2", product.derivative(1).toString());
+        assertTrue(product.evaluate(3, 2) == 5);
+        MultivariatePolynomial copy = new MultivariatePolynomial(product);
+        copy.addTerm(1, 0, 2);
+        assertTrue(product.terms() == 2);
+        assertFalse(copy.equals(product));
+        copy.addTerm(-1, 0, 2);
+        assertTrue(copy.equals(product));
+        assertTrue(copy.hashCode() == product.hashCode());
+        try{
+            MultivariatePolynomial.sum(a, new MultivariatePolynomial(3));
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        MultivariatePolynomial big = new MultivariatePolynomial(3);
+        big.addTerm(1, 0, 0, (1 << 20) + 1);
+        try{
+            MultivariatePolynomial.product(big, big);
+            fail("Expected ArithmeticException not thrown.");
+        } catch (ArithmeticException e){
+        }
+    }
+    
+    public void testRandomProduct(){
+        // The heap product must agree with multiplying term by term.
+        Random random = new Random(24);
+        MultivariatePolynomial a = new MultivariatePolynomial(4);
+        MultivariatePolynomial b = new MultivariatePolynomial(4);
+        for(int i = 0; i < 60; i++){
+            a.addTerm(random.nextInt(9) - 4.5, random.nextInt(5), random.nextInt(5),
+                      random.nextInt(5), random.nextInt(5));
+            b.addTerm(random.nextInt(9) - 4.5, random.nextInt(5), random.nextInt(5),
+                      random.nextInt(5), random.nextInt(5));
+        }
+        MultivariatePolynomial expected = new MultivariatePolynomial(4);
+        for(int i = 0; i < 625; i++){
+            int[] ea = {i / 125, i / 25 % 5, i / 5 % 5, i % 5};
+            double ca = a.getCoefficient(ea);
+            if(ca == 0){
+                continue;
+            }
+            for(int j = 0; j < 625; j++){
+                int[] eb = {j / 125, j / 25 % 5, j / 5 % 5, j % 5};
+                double cb = b.getCoefficient(eb);
+                if(cb != 0){
+                    expected.addTerm(ca * cb, ea[0] + eb[0], ea[1] + eb[1],
+                                     ea[2] + eb[2], ea[3] + eb[3]);
+                }
+            }
+        }
+        MultivariatePolynomial product = MultivariatePolynomial.product(a, b);
+        assertTrue(product.terms() == expected.terms());
+        double[][] points = new double[600][];
+        for(int i = 0; i < points.length; i++){
+            points[i] = new double[] {random.nextDouble(), random.nextDouble(),
+                                      random.nextDouble(), random.nextDouble()};
+        }
+        double[] values = product.evaluateAll(points);
+        for(int i = 0; i < points.length; i++){
+            assertTrue(values[i] == product.evaluate(points[i]));
+            assertEquals(expected.evaluate(points[i]), values[i], 1e-9);
+            assertEquals(a.evaluate(points[i]) * b.evaluate(points[i]), values[i], 1e-9);
+        }
+    }
+    
+    public void testUnivariate(){
+        Polynomial p = new Polynomial("3 5 4 4 -5 3 6 2 1 1 9 0");
+        MultivariatePolynomial m = MultivariatePolynomial.of(p);
+        assertTrue(m.maxExponent() == Integer.MAX_VALUE);
+        assertTrue(m.toPolynomial().equals(p));
+        assertTrue(m.evaluate(1.5) == p.evaluate(1.5));
+        assertTrue(MultivariatePolynomial.product(m, m).toPolynomial()
+                   .equals(Polynomial.product(p, p)));
+        assertTrue(m.derivative(0).toPolynomial().equals(p.derivative()));
+        MultivariatePolynomial y = MultivariatePolynomial.of(p, 2, 1);
+        assertTrue(y.getCoefficient(0, 3) == -5);
+        assertTrue(y.evaluate(7, 1.5) == p.evaluate(1.5));
+        try{
+            y.toPolynomial();
+            fail("Expected IllegalStateException not thrown.");
+        } catch (IllegalStateException e){
+        }
+    }
+}
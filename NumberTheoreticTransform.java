@@ -0,0 +1,217 @@
+/**
+ * Exact multiplication of coefficient arrays modulo a prime below 2^31, behind
+ * ModPolynomial.product. Index i of an array holds the coefficient of x^i and
+ * every coefficient is already reduced.
+ *
+ * Short operands are multiplied by the schoolbook method. Otherwise the
+ * product is a cyclic convolution done by number-theoretic transform: the FFT
+ * with arithmetic modulo a prime q in place of complex numbers, which needs a
+ * 2^k-th root of unity mod q and so 2^k dividing q - 1. If the modulus itself
+ * has one for the transform length it is used directly. Otherwise the
+ * convolution is done modulo three such primes, whose product exceeds every
+ * coefficient of the exact integer product, and the results are combined by
+ * the Chinese remainder theorem. Either way the answer is exact.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class NumberTheoreticTransform{
+
+    // Below this many terms in the shorter operand schoolbook is faster.
+    private static final int SCHOOLBOOK = 32;
+    // The primes used with the Chinese remainder theorem, all with 3 as a
+    // primitive root. Their product is about 2^86, enough for sums of up to
+    // 2^23 products of coefficients below 2^31.
+    private static final long P1 = 998244353; // 119 * 2^23 + 1
+    private static final long P2 = 167772161; // 5 * 2^25 + 1
+    private static final long P3 = 469762049; // 7 * 2^26 + 1
+    private static final int CRT_LENGTH = 1 << 23;
+    private static final long P1_INV_P2 = power(P1 % P2, P2 - 2, P2);
+    private static final long P1P2_INV_P3 = power(P1 * P2 % P3, P3 - 2, P3);
+
+    private NumberTheoreticTransform(){
+    }
+
+    /**
+     * Returns the product of a[0..aLen) and b[0..bLen) modulo the prime m, of
+     * length aLen + bLen - 1. Both lengths must be at least 1.
+     */
+    static long[] multiply(long[] a, int aLen, long[] b, int bLen, long m){
+        long[] c = new long[aLen + bLen - 1];
+        multiply(a, 0, aLen, b, 0, bLen, m, c, 0);
+        return c;
+    }
+
+    private static void multiply(long[] a, int aOff, int aLen, long[] b, int bOff, int bLen,
+                                 long m, long[] c, int cOff){
+        // Adds the product into c starting at cOff.
+        if(Math.min(aLen, bLen) <= SCHOOLBOOK){
+            for(int i = 0; i < aLen; i++){
+                long x = a[aOff + i];
+                if(x != 0){
+                    for(int j = 0; j < bLen; j++){
+                        c[cOff + i + j] = (c[cOff + i + j] + x * b[bOff + j]) % m;
+                    }
+                }
+            }
+            return;
+        }
+        int length = Integer.highestOneBit(aLen + bLen - 2) << 1;
+        if((m - 1) % length == 0){
+            long[] product = convolve(a, aOff, aLen, b, bOff, bLen, length, m, primitiveRoot(m));
+            add(product, aLen + bLen - 1, m, c, cOff);
+            return;
+        }
+        if(length > CRT_LENGTH){
+            // Too long for the CRT primes, so split the longer operand.
+            if(aLen < bLen){
+                multiply(b, bOff, bLen, a, aOff, aLen, m, c, cOff);
+                return;
+            }
+            int half = aLen / 2;
+            multiply(a, aOff, half, b, bOff, bLen, m, c, cOff);
+            multiply(a, aOff + half, aLen - half, b, bOff, bLen, m, c, cOff + half);
+            return;
+        }
+        long[] r1 = convolve(a, aOff, aLen, b, bOff, bLen, length, P1, 3);
+        long[] r2 = convolve(a, aOff, aLen, b, bOff, bLen, length, P2, 3);
+        long[] r3 = convolve(a, aOff, aLen, b, bOff, bLen, length, P3, 3);
+        // Garner's method: x = r1 + P1 t2 + P1 P2 t3 with each t below its prime.
+        long p1 = P1 % m;
+        long p1p2 = P1 * P2 % m;
+        for(int i = 0; i < aLen + bLen - 1; i++){
+            long t2 = (r2[i] - r1[i] % P2 + P2) % P2 * P1_INV_P2 % P2;
+            long v = (r1[i] + P1 % P3 * t2) % P3;
+            long t3 = (r3[i] - v + P3) % P3 * P1P2_INV_P3 % P3;
+            long x = (r1[i] % m + p1 * t2 % m + p1p2 * t3 % m) % m;
+            c[cOff + i] = (c[cOff + i] + x) % m;
+        }
+    }
+
+    private static void add(long[] product, int n, long m, long[] c, int cOff){
+        for(int i = 0; i < n; i++){
+            long sum = c[cOff + i] + product[i];
+            c[cOff + i] = sum >= m ? sum - m : sum;
+        }
+    }
+
+    private static long[] convolve(long[] a, int aOff, int aLen, long[] b, int bOff, int bLen,
+                                   int length, long q, long g){
+        // Cyclic convolution mod q of the operands, zero padded to length.
+        long[] fa = new long[length];
+        long[] fb = new long[length];
+        for(int i = 0; i < aLen; i++){
+            fa[i] = a[aOff + i] % q;
+        }
+        for(int i = 0; i < bLen; i++){
+            fb[i] = b[bOff + i] % q;
+        }
+        long[] roots = roots(length, q, g);
+        transform(fa, roots, q);
+        transform(fb, roots, q);
+        for(int i = 0; i < length; i++){
+            fa[i] = fa[i] * fb[i] % q;
+        }
+        // The inverse transform is the forward one with the output reversed,
+        // then scaled by 1 / length.
+        transform(fa, roots, q);
+        long scale = power(length, q - 2, q);
+        long[] result = new long[length];
+        result[0] = fa[0] * scale % q;
+        for(int i = 1; i < length; i++){
+            result[i] = fa[length - i] * scale % q;
+        }
+        return result;
+    }
+
+    private static long[] roots(int length, long q, long g){
+        // roots[k] = w^k for a primitive length-th root of unity w.
+        long w = power(g, (q - 1) / length, q);
+        long[] roots = new long[Math.max(1, length / 2)];
+        roots[0] = 1;
+        for(int k = 1; k < roots.length; k++){
+            roots[k] = roots[k - 1] * w % q;
+        }
+        return roots;
+    }
+
+    private static void transform(long[] a, long[] roots, long q){
+        // Iterative radix-2 transform in place, input in bit-reversed order.
+        int n = a.length;
+        for(int i = 1, j = 0; i < n; i++){
+            int bit = n >> 1;
+            for(; (j & bit) != 0; bit >>= 1){
+                j ^= bit;
+            }
+            j ^= bit;
+            if(i < j){
+                long t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        }
+        for(int len = 2; len <= n; len <<= 1){
+            int half = len >> 1;
+            int step = n / len;
+            for(int start = 0; start < n; start += len){
+                for(int k = 0; k < half; k++){
+                    long u = a[start + k];
+                    long v = a[start + k + half] * roots[k * step] % q;
+                    long sum = u + v;
+                    a[start + k] = sum >= q ? sum - q : sum;
+                    long difference = u - v;
+                    a[start + k + half] = difference < 0 ? difference + q : difference;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a primitive root of the prime m, the smallest g such that
+     * g^((m - 1) / f) is not 1 for any prime factor f of m - 1.
+     */
+    static long primitiveRoot(long m){
+        if(m == 2){
+            return 1;
+        }
+        long[] factors = new long[32];
+        int count = 0;
+        long n = m - 1;
+        for(long f = 2; f * f <= n; f++){
+            if(n % f == 0){
+                factors[count++] = f;
+                while(n % f == 0){
+                    n /= f;
+                }
+            }
+        }
+        if(n > 1){
+            factors[count++] = n;
+        }
+        for(long g = 2; ; g++){
+            boolean primitive = true;
+            for(int i = 0; i < count && primitive; i++){
+                primitive = power(g, (m - 1) / factors[i], m) != 1;
+            }
+            if(primitive){
+                return g;
+            }
+        }
+    }
+
+    /**
+     * Returns base^exp mod m by repeated squaring, for m below 2^31.
+     */
+    static long power(long base, long exp, long m){
+        long result = 1 % m;
+        base %= m;
+        while(exp > 0){
+            if((exp & 1) != 0){
+                result = result * base % m;
+            }
+            base = base * base % m;
+            exp >>= 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,448 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A dense polynomial whose coefficients live outside the Java heap, for
+ * polynomials of very high degree which would otherwise fill the heap and
+ * lengthen garbage collection. The coefficients are a direct buffer of
+ * doubles indexed by exponent, either anonymous memory or a memory-mapped
+ * file, and every operation works on that memory directly. Results of
+ * operations are new off-heap polynomials.
+ *
+ * The capacity, one more than the highest exponent that can be held, is
+ * fixed when the polynomial is created and may be up to MAX_LENGTH. The
+ * memory is released by close, after which any other method throws
+ * IllegalStateException. A polynomial must not be closed while another
+ * thread is using it.
+ *
+ * A file-backed polynomial is stored as the magic bytes "POFH" and the
+ * format version, followed by the coefficients in native byte order.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class OffHeapPolynomial implements AutoCloseable{
+
+    /**
+     * The largest capacity, limited by the 2GB size of a buffer.
+     */
+    public static final int MAX_LENGTH = (Integer.MAX_VALUE - 8) / 8;
+
+    private static final int MAGIC = 0x504F4648; // "POFH"
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    // Operands are multiplied on the heap in blocks of at most this many
+    // coefficients, so heap use stays bounded whatever their degree.
+    private static final int BLOCK = 1 << 20;
+    // Frees a direct buffer at once, null if the JDK does not allow it.
+    private static final MethodHandle FREE = findCleaner();
+
+    private ByteBuffer memory; // the buffer to free, null once closed
+    private DoubleBuffer coeff; // coeff.get(e) is the coefficient of x^e
+    private final int length;
+    private int degree; // highest exponent present, -1 when there are no terms
+    private int terms;
+
+    private OffHeapPolynomial(ByteBuffer memory, DoubleBuffer coeff){
+        this.memory = memory;
+        this.coeff = coeff;
+        length = coeff.capacity();
+        count();
+    }
+
+    private static MethodHandle findCleaner(){
+        // sun.misc.Unsafe.invokeCleaner is the only way to free a direct or
+        // mapped buffer before it is garbage collected.
+        try{
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field field = unsafe.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(unsafe, "invokeCleaner",
+                MethodType.methodType(void.class, ByteBuffer.class)).bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e){
+            return null;
+        }
+    }
+
+    /**
+     * Creates the zero polynomial in anonymous off-heap memory.
+     *
+     * @param length the capacity, one more than the highest exponent allowed.
+     * @return the new polynomial.
+     * @throws IllegalArgumentException if length is negative or more than
+     * MAX_LENGTH.
+     */
+    public static OffHeapPolynomial allocate(int length){
+        checkLength(length);
+        ByteBuffer memory = ByteBuffer.allocateDirect(8 * length).order(ByteOrder.nativeOrder());
+        return new OffHeapPolynomial(memory, memory.asDoubleBuffer());
+    }
+
+    /**
+     * Copies a polynomial into anonymous off-heap memory, with capacity for
+     * exactly its degree.
+     *
+     * @param p the polynomial to copy.
+     * @return the new polynomial.
+     * @throws NullPointerException if p is null.
+     * @throws IllegalArgumentException if the degree of p is MAX_LENGTH or
+     * more.
+     */
+    public static OffHeapPolynomial of(Polynomial p){
+        int[] exp = new int[p.terms()];
+        double[] c = new double[exp.length];
+        p.copyTerms(exp, c);
+        OffHeapPolynomial result = allocate(exp.length == 0 ? 0 : checkLength(exp[0] + 1L));
+        for(int i = 0; i < exp.length; i++){
+            result.coeff.put(exp[i], c[i]);
+        }
+        result.count();
+        return result;
+    }
+
+    /**
+     * Creates the zero polynomial in a new memory-mapped file, replacing any
+     * existing file. Changes are written back to the file by the operating
+     * system, and at the latest on close.
+     *
+     * @param path the file to create.
+     * @param length the capacity, one more than the highest exponent allowed.
+     * @return the new polynomial.
+     * @throws IOException if the file cannot be created.
+     * @throws IllegalArgumentException if length is negative or more than
+     * MAX_LENGTH.
+     */
+    public static OffHeapPolynomial create(Path path, int length) throws IOException{
+        checkLength(length);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+                StandardOpenOption.READ)){
+            MappedByteBuffer memory = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                  HEADER + 8L * length);
+            memory.putInt(0, MAGIC);
+            memory.putInt(4, VERSION);
+            return mapped(memory);
+        }
+    }
+
+    /**
+     * Opens a polynomial file written through create, mapping it for reading
+     * and writing. The mapping stays valid after the file is closed.
+     *
+     * @param path the file to open.
+     * @return the polynomial held in the file.
+     * @throws IOException if the file cannot be opened or is not a polynomial
+     * file of a known version.
+     */
+    public static OffHeapPolynomial open(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)){
+            long size = channel.size();
+            if(size < HEADER || size > HEADER + 8L * MAX_LENGTH || (size - HEADER) % 8 != 0){
+                throw new IOException("Not a polynomial file.");
+            }
+            MappedByteBuffer memory = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if(memory.getInt(0) != MAGIC){
+                free(memory);
+                throw new IOException("Not a polynomial file.");
+            }
+            if(memory.getInt(4) != VERSION){
+                int version = memory.getInt(4);
+                free(memory);
+                throw new IOException("Unknown version " + version);
+            }
+            return mapped(memory);
+        }
+    }
+
+    private static OffHeapPolynomial mapped(MappedByteBuffer memory){
+        // The coefficients follow the header, which keeps them 8 byte aligned.
+        ByteBuffer data = memory.duplicate().position(HEADER).slice().order(ByteOrder.nativeOrder());
+        return new OffHeapPolynomial(memory, data.asDoubleBuffer());
+    }
+
+    private static int checkLength(long length){
+        if(length < 0 || length > MAX_LENGTH){
+            throw new IllegalArgumentException("Length must be between 0 and "
+                                               + MAX_LENGTH + ": " + length);
+        }
+        return (int)length;
+    }
+
+    private void count(){
+        degree = length - 1;
+        while(degree >= 0 && coeff.get(degree) == 0){
+            degree--;
+        }
+        terms = 0;
+        for(int e = 0; e <= degree; e++){
+            if(coeff.get(e) != 0){
+                terms++;
+            }
+        }
+    }
+
+    private DoubleBuffer coefficients(){
+        if(coeff == null) throw new IllegalStateException("Polynomial is closed.");
+        return coeff;
+    }
+
+    /**
+     * Returns the capacity of this polynomial, one more than the highest
+     * exponent it can hold.
+     *
+     * @return the capacity.
+     */
+    public int length(){
+        return length;
+    }
+
+    /**
+     * Returns the highest exponent with a non-zero coefficient.
+     *
+     * @return the degree, -1 if there are no terms.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public int degree(){
+        coefficients();
+        return degree;
+    }
+
+    /**
+     * Returns the number of terms in this expression.
+     *
+     * @return the number of terms in this expression.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public int terms(){
+        coefficients();
+        return terms;
+    }
+
+    /**
+     * Adds a term to the polynomial expression.
+     *
+     * @param coef the coefficient of the new term.
+     * @param exp the exponent of the new term.
+     * @throws IllegalArgumentException if a negative exponent value, an
+     * exponent beyond the capacity or a zero coefficient is passed.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public void addTerm(double coef, int exp){
+        DoubleBuffer c = coefficients();
+        if(exp < 0 || exp >= length) throw new IllegalArgumentException();
+        if(coef == 0) throw new IllegalArgumentException();
+        double old = c.get(exp);
+        double sum = old + coef;
+        c.put(exp, sum);
+        if(old == 0){
+            terms++;
+            degree = Math.max(degree, exp);
+        } else if(sum == 0){
+            // A coefficient which has cancelled out is no longer a term.
+            terms--;
+            while(degree >= 0 && c.get(degree) == 0){
+                degree--;
+            }
+        }
+    }
+
+    /**
+     * Deletes a term from the polynomial expression and returns that term's
+     * coefficient.
+     *
+     * @param exp the exponent of the term to be deleted.
+     * @return the coefficient of the deleted term, 0.0 if that term does not exist.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public double deleteTerm(int exp){
+        double old = getCoefficient(exp);
+        if(old != 0){
+            addTerm(-old, exp);
+        }
+        return old;
+    }
+
+    /**
+     * Returns the coefficient value of the specified term.
+     *
+     * @param exp the exponent of the term being searched for.
+     * @return the coefficient of the specified term, 0.0 if there is none.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public double getCoefficient(int exp){
+        DoubleBuffer c = coefficients();
+        return exp < 0 || exp > degree ? 0.0 : c.get(exp);
+    }
+
+    /**
+     * Plugs in a value for x and evaluates the expression by Horner's scheme,
+     * reading the coefficients straight from off-heap memory. Results are
+     * identical to Polynomial.evaluate for a dense polynomial.
+     *
+     * @param x the x value.
+     * @return the evaluated expression's numerical value.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public double evaluate(double x){
+        DoubleBuffer c = coefficients();
+        double result = 0.0;
+        for(int e = degree; e >= 0; e--){
+            result = result * x + c.get(e);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the derivative of the polynomial into new off-heap memory.
+     * This polynomial is not modified.
+     *
+     * @return the derived polynomial expression.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public OffHeapPolynomial derivative(){
+        DoubleBuffer c = coefficients();
+        OffHeapPolynomial result = allocate(Math.max(0, degree));
+        for(int e = 1; e <= degree; e++){
+            result.coeff.put(e - 1, c.get(e) * e);
+        }
+        result.count();
+        return result;
+    }
+
+    /**
+     * Static method which adds two polynomials into new off-heap memory.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the sum.
+     * @throws NullPointerException if either polynomial is null.
+     * @throws IllegalStateException if either polynomial is closed.
+     */
+    public static OffHeapPolynomial sum(OffHeapPolynomial a, OffHeapPolynomial b){
+        DoubleBuffer ca = a.coefficients();
+        DoubleBuffer cb = b.coefficients();
+        OffHeapPolynomial result = allocate(Math.max(a.degree, b.degree) + 1);
+        for(int e = 0; e <= a.degree; e++){
+            result.coeff.put(e, ca.get(e));
+        }
+        for(int e = 0; e <= b.degree; e++){
+            result.coeff.put(e, result.coeff.get(e) + cb.get(e));
+        }
+        result.count();
+        return result;
+    }
+
+    /**
+     * Static method which multiplies two polynomials into new off-heap
+     * memory. The operands are cut into blocks of up to 2^20 coefficients,
+     * each pair of blocks is multiplied on the heap by the default
+     * PolynomialMultiplier and the partial products are added into the
+     * result, so the heap holds only a few blocks at a time. The result
+     * agrees with Polynomial.product to within rounding.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the product.
+     * @throws NullPointerException if either polynomial is null.
+     * @throws IllegalStateException if either polynomial is closed.
+     * @throws ArithmeticException if the degree of the product would be
+     * MAX_LENGTH or more.
+     */
+    public static OffHeapPolynomial product(OffHeapPolynomial a, OffHeapPolynomial b){
+        DoubleBuffer ca = a.coefficients();
+        DoubleBuffer cb = b.coefficients();
+        if(a.terms == 0 || b.terms == 0){
+            return allocate(0);
+        }
+        int n = a.degree + 1;
+        int m = b.degree + 1;
+        if((long)n + m - 1 > MAX_LENGTH) throw new ArithmeticException("Product too large.");
+        OffHeapPolynomial result = allocate(n + m - 1);
+        DoubleBuffer out = result.coeff;
+        PolynomialMultiplier multiplier = PolynomialMultiplier.getDefault();
+        double[] blockA = new double[Math.min(n, BLOCK)];
+        double[] blockB = new double[Math.min(m, BLOCK)];
+        for(int i = 0; i < n; i += BLOCK){
+            int lengthA = Math.min(BLOCK, n - i);
+            ca.get(i, blockA, 0, lengthA);
+            for(int j = 0; j < m; j += BLOCK){
+                int lengthB = Math.min(BLOCK, m - j);
+                cb.get(j, blockB, 0, lengthB);
+                double[] piece = multiplier.multiply(blockA, lengthA, blockB, lengthB);
+                for(int k = 0; k < piece.length; k++){
+                    out.put(i + j + k, out.get(i + j + k) + piece[k]);
+                }
+            }
+        }
+        result.count();
+        return result;
+    }
+
+    /**
+     * Copies this polynomial onto the heap.
+     *
+     * @return an equal Polynomial.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public Polynomial toPolynomial(){
+        DoubleBuffer c = coefficients();
+        double[] d = new double[degree + 1];
+        c.get(0, d);
+        return Polynomial.fromDense(d);
+    }
+
+    /**
+     * Writes any changes to a file-backed polynomial back to the file and
+     * releases the memory. Closing a polynomial which is already closed does
+     * nothing.
+     */
+    public void close(){
+        if(memory == null){
+            return;
+        }
+        if(memory instanceof MappedByteBuffer){
+            ((MappedByteBuffer)memory).force();
+        }
+        ByteBuffer m = memory;
+        memory = null;
+        coeff = null;
+        free(m);
+    }
+
+    private static void free(ByteBuffer memory){
+        // Without the cleaner the memory is released when the buffer is
+        // garbage collected.
+        if(FREE != null){
+            try{
+                FREE.invokeExact(memory);
+            } catch (RuntimeException | Error e){
+                throw e;
+            } catch (Throwable t){
+                throw new AssertionError(t);
+            }
+        }
+    }
+
+    /**
+     * Returns a String representation of this polynomial, as
+     * Polynomial.toString does for an equal polynomial. Meant for small
+     * polynomials.
+     *
+     * @return a string representation of this polynomial.
+     * @throws IllegalStateException if the polynomial is closed.
+     */
+    public String toString(){
+        return toPolynomial().toString();
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import junit.framework.TestCase;
+
+public class OffHeapPolynomialTest extends TestCase{
+    
+    public void testConversion(){
+        Polynomial[] polys = {new Polynomial("3 5 4 4 5 3 6 2 1 1 9 0"),
+                              new Polynomial("2 100000 -1.5 70000 0.25 0"),
+                              new Polynomial("")};
+        for(Polynomial p : polys){
+            try(OffHeapPolynomial off = OffHeapPolynomial.of(p)){
+                assertTrue(off.terms() == p.terms());
+                assertTrue(off.toPolynomial().equals(p));
+                assertEquals(p.toString(), off.toString());
+                assertTrue(off.evaluate(0.999) == p.evaluate(0.999));
+            }
+        }
+    }
+    
+    public void testTerms(){
+        try(OffHeapPolynomial p = OffHeapPolynomial.allocate(10)){
+            assertTrue(p.degree() == -1);
+            p.addTerm(2, 9);
+            p.addTerm(3, 4);
+            assertTrue(p.terms() == 2);
+            assertTrue(p.getCoefficient(9) == 2);
+            assertTrue(p.deleteTerm(9) == 2);
+            assertTrue(p.degree() == 4);
+            assertTrue(p.deleteTerm(9) == 0);
+            p.addTerm(-3, 4);
+            assertTrue(p.terms() == 0);
+            try{
+                p.addTerm(1, 10);
+                fail("Expected IAE not thrown.");
+            } catch (IllegalArgumentException e){
+            }
+        }
+    }
+    
+    public void testOperations(){
+        Polynomial a = new Polynomial("3 5 4 4 5 3 6 2 1 1 9 0");
+        Polynomial b = new Polynomial("-3 5 2 7 1 0");
+        try(OffHeapPolynomial offA = OffHeapPolynomial.of(a);
+            OffHeapPolynomial offB = OffHeapPolynomial.of(b);
+            OffHeapPolynomial sum = OffHeapPolynomial.sum(offA, offB);
+            OffHeapPolynomial product = OffHeapPolynomial.product(offA, offB);
+            OffHeapPolynomial derivative = offA.derivative()){
+            assertTrue(sum.toPolynomial().equals(Polynomial.sum(a, b)));
+            assertTrue(product.toPolynomial().equals(Polynomial.product(a, b)));
+            assertTrue(derivative.toPolynomial().equals(a.derivative()));
+        }
+        // Operands of more than one block are multiplied block by block.
+        double[] d = new double[(1 << 20) + 5];
+        for(int i = 0; i < d.length; i++){
+            d[i] = (i % 7) - 3;
+        }
+        Polynomial big = Polynomial.fromDense(d);
+        Polynomial small = new Polynomial("1 3 -2 1 0.5 0");
+        try(OffHeapPolynomial offBig = OffHeapPolynomial.of(big);
+            OffHeapPolynomial offSmall = OffHeapPolynomial.of(small);
+            OffHeapPolynomial product = OffHeapPolynomial.product(offBig, offSmall)){
+            Polynomial expected = Polynomial.product(big, small);
+            assertTrue(product.degree() == expected.toDenseArray().length - 1);
+            for(int e : new int[] {0, 3, 1 << 20, (1 << 20) + 2, product.degree()}){
+                assertEquals(expected.getCoefficient(e), product.getCoefficient(e), 1e-9);
+            }
+            assertEquals(expected.evaluate(-0.9999), product.evaluate(-0.9999), 1e-6);
+        }
+    }
+    
+    public void testMapped() throws IOException{
+        Path file = Files.createTempFile("polynomial", ".bin");
+        try{
+            try(OffHeapPolynomial p = OffHeapPolynomial.create(file, 1000)){
+                p.addTerm(2.5, 999);
+                p.addTerm(-1, 3);
+            }
+            try(OffHeapPolynomial p = OffHeapPolynomial.open(file)){
+                assertTrue(p.length() == 1000);
+                assertTrue(p.toPolynomial().equals(new Polynomial("2.5 999 -1 3")));
+                p.deleteTerm(3);
+            }
+            try(OffHeapPolynomial p = OffHeapPolynomial.open(file)){
+                assertTrue(p.terms() == 1);
+            }
+            Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+            try{
+                OffHeapPolynomial.open(file);
+                fail("Expected IOException not thrown.");
+            } catch (IOException e){
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    public void testClose(){
+        OffHeapPolynomial p = OffHeapPolynomial.of(new Polynomial("1 2"));
+        p.close();
+        p.close();
+        try{
+            p.evaluate(1);
+            fail("Expected IllegalStateException not thrown.");
+        } catch (IllegalStateException e){
+        }
+    }
+}
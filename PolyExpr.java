@@ -0,0 +1,455 @@
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A lazy polynomial expression. Sums, products, scaling, derivatives and
+ * composition of PolyExprs only record the operation, building a directed
+ * acyclic graph whose leaves are Polynomials. Nothing is computed until the
+ * expression is evaluated or materialized, and a subexpression used in several
+ * places is computed once.
+ *
+ * evaluate(x) never builds a polynomial. Every node of the graph is evaluated
+ * at x in one pass, children before parents. Where derivatives are taken,
+ * nodes carry truncated Taylor series about x instead of single values, as many
+ * terms as the derivatives above them need, so d/dx (a * b) costs the same as
+ * evaluating a and b to first order. materialize() builds the Polynomial the
+ * expression stands for, also children first and once per subexpression.
+ *
+ * Leaves hold a copy-on-write copy of their Polynomial, taken by of, so later
+ * changes to that Polynomial do not affect the expression.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public abstract class PolyExpr{
+
+    private final PolyExpr[] inputs;
+    // Built on first use. Racing threads build equal schedules, so no locking.
+    private Schedule evaluation;
+    private Schedule materialization;
+
+    PolyExpr(PolyExpr... inputs){
+        for(PolyExpr input : inputs){
+            if(input == null) throw new NullPointerException();
+        }
+        this.inputs = inputs;
+    }
+
+    /**
+     * Returns an expression standing for a polynomial.
+     *
+     * @param p the polynomial.
+     * @return a leaf expression holding a copy of p.
+     * @throws NullPointerException if p is null.
+     */
+    public static PolyExpr of(Polynomial p){
+        return new Leaf(p.sharedCopy());
+    }
+
+    /**
+     * Static method which forms the sum of two expressions.
+     *
+     * @param a the first expression.
+     * @param b the second expression.
+     * @return the expression a + b.
+     * @throws NullPointerException if either expression is null.
+     */
+    public static PolyExpr sum(PolyExpr a, PolyExpr b){
+        return new Sum(a, b);
+    }
+
+    /**
+     * Static method which forms the product of two expressions.
+     *
+     * @param a the first expression.
+     * @param b the second expression.
+     * @return the expression a * b.
+     * @throws NullPointerException if either expression is null.
+     */
+    public static PolyExpr product(PolyExpr a, PolyExpr b){
+        return new Product(a, b);
+    }
+
+    /**
+     * Forms the derivative of this expression.
+     *
+     * @return the expression d/dx this.
+     */
+    public PolyExpr derivative(){
+        return new Derivative(this);
+    }
+
+    /**
+     * Forms this expression multiplied by a constant.
+     *
+     * @param factor the constant.
+     * @return the expression factor * this.
+     */
+    public PolyExpr scale(double factor){
+        return new Scale(this, factor);
+    }
+
+    /**
+     * Forms the composition of this expression with another.
+     *
+     * @param inner the expression substituted for x.
+     * @return the expression this(inner(x)).
+     * @throws NullPointerException if inner is null.
+     */
+    public PolyExpr compose(PolyExpr inner){
+        return new Compose(this, inner);
+    }
+
+    /**
+     * Evaluates the expression at x without building any intermediate
+     * polynomial.
+     *
+     * @param x the x value.
+     * @return the value of the expression at x.
+     */
+    public double evaluate(double x){
+        return taylor(x, 0)[0];
+    }
+
+    /**
+     * Builds the polynomial this expression stands for. Each distinct
+     * subexpression is computed once. The result belongs to the caller.
+     *
+     * @return the polynomial.
+     */
+    public Polynomial materialize(){
+        Schedule schedule = materialization;
+        if(schedule == null){
+            materialization = schedule = new Schedule(this, false);
+        }
+        Polynomial[] results = new Polynomial[schedule.nodes.length];
+        for(int n = 0; n < results.length; n++){
+            int[] index = schedule.inputs[n];
+            Polynomial[] in = new Polynomial[index.length];
+            for(int i = 0; i < index.length; i++){
+                in[i] = results[index[i]];
+            }
+            results[n] = schedule.nodes[n].apply(in);
+            // Release inputs no later node needs.
+            for(int i : schedule.released[n]){
+                results[i] = null;
+            }
+        }
+        Polynomial result = results[results.length - 1];
+        // A bare leaf materializes to its own copy, which must stay unchanged.
+        return this instanceof Leaf ? result.sharedCopy() : result;
+    }
+
+    /**
+     * Returns the first order + 1 Taylor coefficients of the expression about
+     * x, entry k being the k-th derivative over k!.
+     */
+    double[] taylor(double x, int order){
+        Schedule schedule = evaluation;
+        if(schedule == null){
+            evaluation = schedule = new Schedule(this, true);
+        }
+        int count = schedule.nodes.length;
+        // Orders needed, passed down from parents to children.
+        int[] orders = new int[count];
+        orders[count - 1] = order;
+        for(int n = count - 1; n >= 0; n--){
+            int needed = schedule.nodes[n].inputOrder(orders[n]);
+            for(int i : schedule.inputs[n]){
+                orders[i] = Math.max(orders[i], needed);
+            }
+        }
+        double[][] jets = new double[count][];
+        for(int n = 0; n < count; n++){
+            int[] index = schedule.inputs[n];
+            double[][] in = new double[index.length][];
+            for(int i = 0; i < index.length; i++){
+                in[i] = jets[index[i]];
+            }
+            jets[n] = schedule.nodes[n].jet(x, in, orders[n]);
+        }
+        return jets[count - 1];
+    }
+
+    /**
+     * Returns the number of inputs which are evaluated at the same x as this
+     * node. Those come first in the inputs.
+     */
+    int pointwiseInputs(){
+        return inputs.length;
+    }
+
+    /**
+     * Returns the Taylor order this node needs of its inputs to give its own
+     * value to the given order.
+     */
+    int inputOrder(int order){
+        return order;
+    }
+
+    /**
+     * Returns the Taylor coefficients of this node about x up to the given
+     * order, from those of its pointwise inputs. Input series may be longer
+     * than needed.
+     */
+    abstract double[] jet(double x, double[][] in, int order);
+
+    /**
+     * Returns the polynomial of this node from the polynomials of all its
+     * inputs, which must not be modified.
+     */
+    abstract Polynomial apply(Polynomial[] in);
+
+    /**
+     * The nodes of an expression in an order which puts every node after its
+     * inputs, the root last, with the inputs of each as positions in that
+     * order. Built without recursion, so deep expressions are safe.
+     */
+    private static class Schedule{
+        final PolyExpr[] nodes;
+        final int[][] inputs;
+        final int[][] released; // inputs last used by each node
+
+        Schedule(PolyExpr root, boolean pointwise){
+            Map<PolyExpr, Integer> position = new IdentityHashMap<>();
+            PolyExpr[] order = new PolyExpr[16];
+            int count = 0;
+            // An explicit stack of nodes with the next input to visit.
+            PolyExpr[] stack = new PolyExpr[16];
+            int[] next = new int[16];
+            int depth = 0;
+            stack[0] = root;
+            while(depth >= 0){
+                PolyExpr node = stack[depth];
+                int width = pointwise ? node.pointwiseInputs() : node.inputs.length;
+                if(next[depth] < width){
+                    PolyExpr input = node.inputs[next[depth]++];
+                    if(!position.containsKey(input)){
+                        if(++depth == stack.length){
+                            stack = Arrays.copyOf(stack, depth * 2);
+                            next = Arrays.copyOf(next, depth * 2);
+                        }
+                        stack[depth] = input;
+                        next[depth] = 0;
+                    }
+                    continue;
+                }
+                if(!position.containsKey(node)){
+                    if(count == order.length){
+                        order = Arrays.copyOf(order, count * 2);
+                    }
+                    position.put(node, count);
+                    order[count++] = node;
+                }
+                depth--;
+            }
+            nodes = Arrays.copyOf(order, count);
+            inputs = new int[count][];
+            int[] lastUse = new int[count];
+            for(int n = 0; n < count; n++){
+                int width = pointwise ? nodes[n].pointwiseInputs() : nodes[n].inputs.length;
+                inputs[n] = new int[width];
+                for(int i = 0; i < width; i++){
+                    inputs[n][i] = position.get(nodes[n].inputs[i]);
+                    lastUse[inputs[n][i]] = n;
+                }
+            }
+            int[] releases = new int[count];
+            for(int n = 0; n < count - 1; n++){
+                releases[lastUse[n]]++;
+            }
+            released = new int[count][];
+            for(int n = 0; n < count; n++){
+                released[n] = new int[releases[n]];
+            }
+            for(int n = count - 2; n >= 0; n--){
+                released[lastUse[n]][--releases[lastUse[n]]] = n;
+            }
+        }
+    }
+
+    private static class Leaf extends PolyExpr{
+        private final Polynomial p;
+        private Terms terms; // for higher order series, made on demand
+
+        Leaf(Polynomial p){
+            this.p = p;
+        }
+
+        double[] jet(double x, double[][] in, int order){
+            if(order == 0){
+                return new double[] {p.evaluate(x)};
+            }
+            if(order == 1){
+                return p.evaluateWithDerivative(x);
+            }
+            // Read once: another thread may be setting the field, but a Terms
+            // seen at all is seen whole, its fields being final.
+            Terms t = terms;
+            if(t == null){
+                t = new Terms(p);
+                terms = t;
+            }
+            int[] exponents = t.exponents;
+            double[] coefficients = t.coefficients;
+            // c x^e contributes c C(e, k) x^(e - k) to coefficient k.
+            double[] jet = new double[order + 1];
+            for(int i = 0; i < exponents.length; i++){
+                int e = exponents[i];
+                int top = Math.min(order, e);
+                double binomial = 1;
+                for(int k = 0; k < top; k++){
+                    binomial = binomial * (e - k) / (k + 1);
+                }
+                double power = Polynomial.power(x, e - top);
+                for(int k = top; k >= 0; k--){
+                    jet[k] += coefficients[i] * binomial * power;
+                    power *= x;
+                    binomial = binomial * k / (e - k + 1);
+                }
+            }
+            return jet;
+        }
+
+        Polynomial apply(Polynomial[] in){
+            return p;
+        }
+
+        /**
+         * The terms of a leaf's polynomial, as parallel arrays.
+         */
+        private static class Terms{
+            final int[] exponents;
+            final double[] coefficients;
+
+            Terms(Polynomial p){
+                exponents = new int[p.terms()];
+                coefficients = new double[p.terms()];
+                p.copyTerms(exponents, coefficients);
+            }
+        }
+    }
+
+    private static class Sum extends PolyExpr{
+        Sum(PolyExpr a, PolyExpr b){
+            super(a, b);
+        }
+
+        double[] jet(double x, double[][] in, int order){
+            double[] jet = new double[order + 1];
+            for(int k = 0; k <= order; k++){
+                jet[k] = in[0][k] + in[1][k];
+            }
+            return jet;
+        }
+
+        Polynomial apply(Polynomial[] in){
+            return Polynomial.sum(in[0], in[1]);
+        }
+    }
+
+    private static class Product extends PolyExpr{
+        Product(PolyExpr a, PolyExpr b){
+            super(a, b);
+        }
+
+        double[] jet(double x, double[][] in, int order){
+            return multiply(in[0], in[1], order);
+        }
+
+        Polynomial apply(Polynomial[] in){
+            return Polynomial.product(in[0], in[1]);
+        }
+    }
+
+    private static double[] multiply(double[] a, double[] b, int order){
+        // Product of two series, truncated after x^order.
+        double[] c = new double[order + 1];
+        for(int i = 0; i <= order; i++){
+            for(int j = 0; j <= order - i; j++){
+                c[i + j] += a[i] * b[j];
+            }
+        }
+        return c;
+    }
+
+    private static class Scale extends PolyExpr{
+        private final double factor;
+
+        Scale(PolyExpr a, double factor){
+            super(a);
+            this.factor = factor;
+        }
+
+        double[] jet(double x, double[][] in, int order){
+            double[] jet = new double[order + 1];
+            for(int k = 0; k <= order; k++){
+                jet[k] = factor * in[0][k];
+            }
+            return jet;
+        }
+
+        Polynomial apply(Polynomial[] in){
+            Polynomial result = in[0].sharedCopy();
+            result.scaleInPlace(factor);
+            return result;
+        }
+    }
+
+    private static class Derivative extends PolyExpr{
+        Derivative(PolyExpr a){
+            super(a);
+        }
+
+        int inputOrder(int order){
+            return order + 1;
+        }
+
+        double[] jet(double x, double[][] in, int order){
+            double[] jet = new double[order + 1];
+            for(int k = 0; k <= order; k++){
+                jet[k] = (k + 1) * in[0][k + 1];
+            }
+            return jet;
+        }
+
+        Polynomial apply(Polynomial[] in){
+            return in[0].derivative();
+        }
+    }
+
+    private static class Compose extends PolyExpr{
+        private final PolyExpr outer;
+
+        // The inner expression comes first, since only it is evaluated at x.
+        Compose(PolyExpr outer, PolyExpr inner){
+            super(inner, outer);
+            this.outer = outer;
+        }
+
+        int pointwiseInputs(){
+            return 1;
+        }
+
+        double[] jet(double x, double[][] in, int order){
+            // With inner = g0 + h, outer(inner) is the series of outer about
+            // g0 with h substituted, by Horner's scheme on series.
+            double[] g = in[0];
+            double[] f = outer.taylor(g[0], order);
+            double[] h = Arrays.copyOf(g, order + 1);
+            h[0] = 0;
+            double[] jet = new double[order + 1];
+            jet[0] = f[order];
+            for(int k = order - 1; k >= 0; k--){
+                jet = multiply(jet, h, order);
+                jet[0] += f[k];
+            }
+            return jet;
+        }
+
+        Polynomial apply(Polynomial[] in){
+            return in[1].compose(in[0]);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import junit.framework.TestCase;
+
+public class PolyExprTest extends TestCase{
+    
+    public void testEvaluate(){
+        Polynomial a = new Polynomial("2 3 -1 1 4 0");
+        Polynomial b = new Polynomial("1 2 1 0");
+        Polynomial c = new Polynomial("1 5 -3 2");
+        // sum(product(a, b), derivative(c)) and 3 * a(b(x))
+        PolyExpr expr = PolyExpr.sum(PolyExpr.product(PolyExpr.of(a), PolyExpr.of(b)),
+                                     PolyExpr.of(c).derivative());
+        Polynomial expected = Polynomial.sum(Polynomial.product(a, b), c.derivative());
+        PolyExpr composed = PolyExpr.of(a).compose(PolyExpr.of(b)).scale(3);
+        for(double x = -2; x <= 2; x += 0.25){
+            assertEquals(expected.evaluate(x), expr.evaluate(x), 1e-9);
+            double y = b.evaluate(x);
+            assertEquals(3 * a.evaluate(y), composed.evaluate(x), 1e-9);
+        }
+        PolynomialFixtures.assertClose(expected, expr.materialize(), 1e-9);
+    }
+    
+    public void testDerivatives(){
+        // Second and third derivatives through products and composition.
+        Polynomial a = new Polynomial("1 7 -2 4 3 1");
+        Polynomial b = new Polynomial("2 2 1 1 -1 0");
+        PolyExpr product = PolyExpr.product(PolyExpr.of(a), PolyExpr.of(b));
+        PolyExpr second = product.derivative().derivative();
+        Polynomial expected = Polynomial.product(a, b).derivative().derivative();
+        PolyExpr composed = PolyExpr.of(a).compose(PolyExpr.of(b)).derivative().derivative().derivative();
+        Polynomial composedExpected = composed.materialize();
+        for(double x = -1.5; x <= 1.5; x += 0.5){
+            assertEquals(expected.evaluate(x), second.evaluate(x), 1e-8);
+            assertEquals(composedExpected.evaluate(x), composed.evaluate(x),
+                         1e-9 * Math.max(1, Math.abs(composedExpected.evaluate(x))));
+        }
+        PolynomialFixtures.assertClose(expected, second.materialize(), 1e-9);
+    }
+    
+    public void testSharingAndDepth(){
+        // A chain of doublings shares each node twice: 2^1000 paths, 1000 nodes.
+        PolyExpr expr = PolyExpr.of(new Polynomial("1 1"));
+        for(int i = 0; i < 1000; i++){
+            expr = PolyExpr.sum(expr, expr).scale(0.5);
+        }
+        assertEquals(0.75, expr.evaluate(0.75), 1e-12);
+        assertEquals(1, expr.derivative().evaluate(3), 1e-12);
+        assertTrue(expr.materialize().equals(new Polynomial("1 1")));
+    }
+    
+    public void testLeafIsCopied(){
+        Polynomial p = new Polynomial("1 2");
+        PolyExpr expr = PolyExpr.of(p);
+        p.addTerm(1, 0);
+        assertEquals(4, expr.evaluate(2), 0);
+        Polynomial m = expr.materialize();
+        m.addTerm(5, 0);
+        assertEquals(4, expr.evaluate(2), 0);
+        assertEquals(4, expr.materialize().evaluate(2), 0);
+    }
+}
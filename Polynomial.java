@@ -1,474 +1,1683 @@
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleUnaryOperator;
 
 /**
- * A class to model polynomial expressions in a linked list data structure.
- * 
+ * A class to model polynomial expressions. Terms are kept in one of two
+ * primitive array layouts: a dense array of coefficients indexed by exponent,
+ * or a packed sparse pair of exponent/coefficient arrays in descending order of
+ * exponent. The layout is chosen automatically from the fill ratio of the
+ * polynomial and is invisible to callers.
+ *
+ * Inserting into or deleting from the sparse layout shifts the terms after
+ * the change, which is slow for very large polynomials updated at random
+ * exponents. Those may be switched to indexed mode with setIndexed, see there.
+ *
  * @author Matthew Staehely
  * @version CSC 143 Winter 15
  */
 public class Polynomial{
-    
-    private Node front, last; // last node stored for convenience
+
+    // Switch to the dense layout once at least half of the slots are in use,
+    // and back to sparse below a quarter. The gap keeps a polynomial hovering
+    // near the boundary from converting on every update.
+    private static final double DENSE_FILL = 0.5;
+    private static final double SPARSE_FILL = 0.25;
+    // Polynomials of low degree are always dense, the array is tiny anyway.
+    private static final int SMALL_DEGREE = 16;
+    // Number of points evaluated together by the batch evaluate methods.
+    private static final int BLOCK = 256;
+    // Indexed mode stages at least this many changes before merging them in.
+    private static final int MIN_PENDING = 64;
+
+    private double[] dense; // dense[e] is the coefficient of x^e, null when sparse
+    private int[] exponents; // sparse layout, descending order
+    private double[] coefficients; // sparse layout, parallel to exponents
+    private int degree; // highest exponent present, -1 when there are no terms
     private int terms; // tracks TERMS in polynomial, not DEGREE
-    
+    private boolean shared; // storage may be in use by a sharedCopy
+    private DoubleUnaryOperator compiled; // cached by compile, dropped on change
+    private boolean indexed; // sparse changes are staged, see setIndexed
+    private int[] pendingKeys; // staged exponents as ~exp, so 0 marks an empty slot
+    private double[] pendingValues; // new coefficient of each, 0 if deleted
+    private int pendingSize;
+    private int pendingTerms; // change in the term count not yet in the arrays
+
     /**
-     * Constructor of class Polynomial.
-     * 
+     * Constructor of class Polynomial. Pairs with a zero coefficient add
+     * nothing and repeated exponents are summed.
+     *
      * @param s String which represents the polynomial expression. Must be
      * composed of double/integer or integer/integer pairs.
-     * 
-     * @throws IllegalArgumentException if non-numbers are passed to constructor.
+     *
+     * @throws IllegalArgumentException if non-numbers or negative exponents are
+     * passed to constructor. This is a PolynomialFormatException giving the
+     * position of the bad token.
      */
     public Polynomial(String s){
-        Scanner reader = new Scanner(s);
-        double check; // used to ensure non-negative integers passed for exponent
-        Node node;
-        terms = 0;
-        if(s == ""){
-            front = new Node(1, 0);
-            last = front;
-            front.coefficient = 0;
-        } else {
-            // This loop makes sure that the string is both real numbers only as well
-            // as contains no negative integers.
-            while(reader.hasNext()){
-                if(!reader.hasNextDouble())
-                throw new IllegalArgumentException("Real numbers only.");
-                reader.nextDouble();
-            }
-            
-            // Builds the polynomial.
-            reader = new Scanner(s);
-            front = null;
-            last = front;
-            //front = new Node(reader.nextDouble(), reader.nextInt());
-            //last = front;
-            //this.terms++;
-            while(reader.hasNext()){
-                this.addTerm(reader.nextDouble(), reader.nextInt());
-            }
-        }   
-    }
-    
+        this();
+        long start = PolynomialMetrics.start();
+        // Validation and parsing happen together in a single pass.
+        assign(PolynomialParser.parse(s));
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.PARSE, start, this);
+    }
+
     /**
      * Constructor for class Polynomial. Creates a deep copy of a polynomial
      * expression, does not modify original.
-     * 
+     *
      * @param p the polynomial object to be copied.
      * @throws NullPointerException if passed Polynomial is null.
      */
     public Polynomial(Polynomial p){
-        this("");
         if(p == null)throw new NullPointerException();
-        int[] exp = new int[p.terms()];
-        double[] coeff = new double[p.terms()];
-        int testTerms = 0;
-        for(int i = 0, j = 0; testTerms < p.terms(); i++){
-            if(p.getCoefficient(i) != 0){
-                exp[j] = i;
-                coeff[j] = p.getCoefficient(i);
-                j++;
-                testTerms++;
-            }
+        p.flush();
+        // A structural copy of the arrays, trimmed to the terms in use.
+        if(p.dense != null){
+            dense = Arrays.copyOf(p.dense, p.degree + 1);
+        } else {
+            exponents = Arrays.copyOf(p.exponents, p.terms);
+            coefficients = Arrays.copyOf(p.coefficients, p.terms);
         }
-        for(int i = 0; i < exp.length; i++){
-            this.addTerm(coeff[i], exp[i]);
+        degree = p.degree;
+        terms = p.terms;
+    }
+
+    /**
+     * Returns a copy of this polynomial which shares its storage with this
+     * one. The storage is copied the first time either polynomial is modified,
+     * so the copy costs nothing until then and behaves exactly like a copy
+     * made by the copy constructor.
+     *
+     * @return a copy-on-write copy of this polynomial.
+     */
+    public Polynomial sharedCopy(){
+        flush();
+        Polynomial copy = new Polynomial(dense, exponents, coefficients, degree, terms);
+        copy.shared = true;
+        shared = true;
+        return copy;
+    }
+
+    private void unshare(){
+        // Called before any change to the arrays. Once storage has been shared
+        // neither side knows whether the other still uses it, so both copy.
+        compiled = null;
+        if(shared){
+            if(dense != null){
+                dense = dense.clone();
+            } else {
+                exponents = exponents.clone();
+                coefficients = coefficients.clone();
+            }
+            shared = false;
         }
     }
-    
+
+    /**
+     * Creates the zero polynomial in the dense layout.
+     */
+    private Polynomial(){
+        dense = new double[SMALL_DEGREE];
+        degree = -1;
+        terms = 0;
+    }
+
+    /**
+     * Creates a polynomial which takes over storage built elsewhere, and
+     * allocates nothing. dense is null in the sparse layout, exponents and
+     * coefficients in the dense one.
+     */
+    private Polynomial(double[] dense, int[] exponents, double[] coefficients,
+                       int degree, int terms){
+        this.dense = dense;
+        this.exponents = exponents;
+        this.coefficients = coefficients;
+        this.degree = degree;
+        this.terms = terms;
+    }
+
+    private void assign(Polynomial p){
+        // Takes over the storage of a polynomial built elsewhere.
+        dense = p.dense;
+        exponents = p.exponents;
+        coefficients = p.coefficients;
+        degree = p.degree;
+        terms = p.terms;
+        shared = false;
+        compiled = null;
+        pendingKeys = null;
+        pendingValues = null;
+        pendingSize = 0;
+        pendingTerms = 0;
+    }
+
     /**
      * Returns the number of terms in this expression.
-     * 
+     *
      * @return the number of terms in this expression.
      */
     public int terms(){
-        return terms;
+        return terms + pendingTerms;
+    }
+
+    /**
+     * Switches indexed mode on or off. In indexed mode, adding and deleting
+     * terms of a sparse polynomial takes O(1) amortized time instead of time
+     * proportional to the number of terms: each change is staged in a hash
+     * index of exponents, which getCoefficient consults before binary
+     * searching the terms, and the staged changes are merged into the sorted
+     * terms in one pass once there are as many of them as terms, or when any
+     * other operation needs the terms in order. Iteration order, results and
+     * the polynomial's value are the same in both modes. Dense polynomials
+     * already update in O(1), so the mode only matters while sparse.
+     *
+     * Because reading methods may do that merge, an indexed polynomial should
+     * not be read by several threads at once without synchronization.
+     *
+     * @param indexed true to stage sparse changes, false to apply each at
+     * once. Switching off merges any staged changes.
+     */
+    public void setIndexed(boolean indexed){
+        if(!indexed){
+            flush();
+        }
+        this.indexed = indexed;
+    }
+
+    /**
+     * Returns true if this polynomial is in indexed mode, see setIndexed.
+     *
+     * @return true if sparse changes are staged.
+     */
+    public boolean isIndexed(){
+        return indexed;
+    }
+
+    /**
+     * Returns true if this polynomial is currently held in the dense layout.
+     * The layout changes by itself as terms are added and removed.
+     *
+     * @return true if the dense layout is in use, false if the sparse one is.
+     */
+    public boolean isDense(){
+        flush();
+        return dense != null;
     }
-    
+
     /**
      * Adds a term to the polynomial expression.
-     * 
+     *
      * @param coef the coefficient of the new term.
      * @param exp the exponent of the new term.
-     * @throws IllegalArgumentException if a negative exponent value is passed.
+     * @throws IllegalArgumentException if a negative exponent value or a zero
+     * coefficient is passed.
      */
     public void addTerm(double coef, int exp){
         if(exp < 0) throw new IllegalArgumentException();
-        Node node = new Node(coef, exp);
-        // First checks to see if polynomial is empty (but not null).
-        if(front == null || node.exponent > front.exponent){
-            node.next = this.front;
-            this.front = node;
-            this.terms++;
-            // Now verifies end of polynomial and breaks link with coefficients of
-            // 0.
-            if(node.next != null && node.next.coefficient == 0){
-                node.next = null;
-                this.last = node;
-            }
-        } else if(node.exponent == front.exponent){
-            // This clears out an empty polynomial of its "0.0 0" node.
-            if(front.coefficient == 0){
-                terms++;
-            }
-            front.coefficient += node.coefficient;
-            // Polynomial addition may be subtraction. Gets rid of a node which
-            // has a modified coefficient of 0.
-            if(front.coefficient == 0){
-                front = front.next;
-                terms--;
-            }
+        if(coef == 0) throw new IllegalArgumentException();
+        long start = PolynomialMetrics.start();
+        if(dense == null && indexed){
+            double old = coefficientOf(exp);
+            stage(exp, old, old + coef);
         } else {
-            addTerm(front, node, front.next);
+            unshare();
+            if(dense != null){
+                if(exp >= dense.length && !fitsDense(terms + 1, exp)){
+                    toSparse();
+                    addSparse(coef, exp);
+                } else {
+                    addDense(coef, exp);
+                }
+            } else {
+                addSparse(coef, exp);
+            }
+            rebalance();
         }
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.ADD_TERM, start, this);
     }
-    
-    private void addTerm(Node prev, Node add, Node current){
-        // Recurses through linked list to add terms to their proper location.
-        if(current == null){
-            prev.next = add;
-            last = add;
+
+    private void addDense(double coef, int exp){
+        // Grows the array as needed and keeps the term count and degree current.
+        if(exp >= dense.length){
+            double[] grown = new double[Math.max(exp + 1, dense.length * 2)];
+            System.arraycopy(dense, 0, grown, 0, degree + 1);
+            dense = grown;
+        }
+        double old = dense[exp];
+        dense[exp] += coef;
+        if(old == 0){
             terms++;
-        } else if(current.exponent == add.exponent){
-            current.coefficient += add.coefficient;
-            if(current.coefficient == 0){
-                prev.next = current.next;
-                if(prev.next == null){
-                    last = prev;
+            if(exp > degree){
+                degree = exp;
+            }
+        } else if(dense[exp] == 0){
+            // Polynomial addition may be subtraction. A coefficient which has
+            // cancelled out is no longer a term.
+            terms--;
+            if(exp == degree){
+                trimDegree();
+            }
+        }
+    }
+
+    private void addSparse(double coef, int exp){
+        int i = indexOf(exp);
+        if(i >= 0){
+            coefficients[i] += coef;
+            if(coefficients[i] == 0){
+                removeSparse(i);
+            }
+            return;
+        }
+        // Not present, so insert at the position which keeps the descending order.
+        i = -(i + 1);
+        if(terms == exponents.length){
+            int capacity = Math.max(4, terms * 2);
+            exponents = Arrays.copyOf(exponents, capacity);
+            coefficients = Arrays.copyOf(coefficients, capacity);
+        }
+        System.arraycopy(exponents, i, exponents, i + 1, terms - i);
+        System.arraycopy(coefficients, i, coefficients, i + 1, terms - i);
+        exponents[i] = exp;
+        coefficients[i] = coef;
+        terms++;
+        degree = exponents[0];
+    }
+
+    private void removeSparse(int i){
+        System.arraycopy(exponents, i + 1, exponents, i, terms - i - 1);
+        System.arraycopy(coefficients, i + 1, coefficients, i, terms - i - 1);
+        terms--;
+        degree = terms == 0 ? -1 : exponents[0];
+    }
+
+    private int indexOf(int exp){
+        // Binary search of the sparse arrays, which are in descending order. Returns
+        // the index of the term, or -(insertion point) - 1 if it is not present.
+        int low = 0;
+        int high = terms - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            int e = exponents[mid];
+            if(e > exp){
+                low = mid + 1;
+            } else if(e < exp){
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int hash(int exp, int capacity){
+        // Fibonacci hashing. The slot comes from the high bits of the product,
+        // which depend on every bit of exp, so exponents with a power of two
+        // stride spread out as well as consecutive ones.
+        return (exp * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(capacity));
+    }
+
+    private int pendingSlot(int exp){
+        // Linear probing in the staging table. Returns the slot holding exp,
+        // or -(empty slot) - 1 if it is not staged.
+        int key = ~exp;
+        int mask = pendingKeys.length - 1;
+        int i = hash(exp, pendingKeys.length);
+        while(pendingKeys[i] != 0){
+            if(pendingKeys[i] == key){
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -(i + 1);
+    }
+
+    /**
+     * Returns the most slots a lookup of any staged exponent has to probe, or
+     * 0 if nothing is staged. Does not merge the staged changes.
+     */
+    int longestPendingProbe(){
+        int longest = 0;
+        if(pendingKeys != null){
+            int mask = pendingKeys.length - 1;
+            for(int j = 0; j < pendingKeys.length; j++){
+                if(pendingKeys[j] != 0){
+                    int home = hash(~pendingKeys[j], pendingKeys.length);
+                    longest = Math.max(longest, ((j - home) & mask) + 1);
                 }
-                terms--;
-            }
-        } else if(prev.exponent -1 >= add.exponent 
-                  && add.exponent > current.exponent){
-            // This loop checks to make sure a new polynomial term is being added
-            // in the appropriate spot to maintain conventional expression.
-            prev.next = add;
-            add.next = current;
-            terms++;
+            }
+        }
+        return longest;
+    }
+
+    private void stage(int exp, double old, double coef){
+        // Records the new coefficient of exp without touching the sorted
+        // arrays, so shared storage need not be copied yet.
+        compiled = null;
+        if(pendingKeys == null){
+            pendingKeys = new int[16];
+            pendingValues = new double[16];
+        }
+        int i = pendingSlot(exp);
+        if(i < 0){
+            i = -(i + 1);
+            pendingKeys[i] = ~exp;
+            pendingSize++;
+        }
+        pendingValues[i] = coef;
+        pendingTerms += (coef != 0 ? 1 : 0) - (old != 0 ? 1 : 0);
+        // Merging costs about one step per term, so waiting until there are
+        // as many staged changes as terms keeps each change O(1) amortized.
+        if(pendingSize >= Math.max(MIN_PENDING, terms)){
+            flush();
+        } else if(pendingSize * 2 > pendingKeys.length){
+            growPending();
+        }
+    }
+
+    private void growPending(){
+        int[] oldKeys = pendingKeys;
+        double[] oldValues = pendingValues;
+        pendingKeys = new int[oldKeys.length * 2];
+        pendingValues = new double[oldKeys.length * 2];
+        for(int j = 0; j < oldKeys.length; j++){
+            if(oldKeys[j] != 0){
+                int i = -(pendingSlot(~oldKeys[j]) + 1);
+                pendingKeys[i] = oldKeys[j];
+                pendingValues[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void flush(){
+        // Merges the staged changes into the sparse arrays. Called first by
+        // everything which reads the arrays as a whole.
+        if(pendingSize == 0){
+            return;
+        }
+        // Each staged exponent with its slot, sorted so the largest comes last.
+        long[] order = new long[pendingSize];
+        for(int j = 0, k = 0; j < pendingKeys.length; j++){
+            if(pendingKeys[j] != 0){
+                order[k++] = (long)~pendingKeys[j] << 32 | j;
+            }
+        }
+        Arrays.sort(order);
+        int[] exp = new int[Math.max(4, terms + pendingTerms)];
+        double[] coeff = new double[exp.length];
+        int i = 0;
+        int count = 0;
+        for(int k = order.length - 1; k >= 0; k--){
+            int e = (int)(order[k] >>> 32);
+            // Copies the run of terms above e, then replaces or drops e.
+            int run = i;
+            while(run < terms && exponents[run] > e){
+                run++;
+            }
+            System.arraycopy(exponents, i, exp, count, run - i);
+            System.arraycopy(coefficients, i, coeff, count, run - i);
+            count += run - i;
+            i = run < terms && exponents[run] == e ? run + 1 : run;
+            double c = pendingValues[(int)order[k]];
+            if(c != 0){
+                exp[count] = e;
+                coeff[count++] = c;
+            }
+        }
+        System.arraycopy(exponents, i, exp, count, terms - i);
+        System.arraycopy(coefficients, i, coeff, count, terms - i);
+        exponents = exp;
+        coefficients = coeff;
+        terms = count + terms - i;
+        degree = terms == 0 ? -1 : exponents[0];
+        shared = false;
+        pendingKeys = null;
+        pendingValues = null;
+        pendingSize = 0;
+        pendingTerms = 0;
+        rebalance();
+    }
+
+    private void trimDegree(){
+        // Walks the dense array down to the new highest non-zero coefficient.
+        while(degree >= 0 && dense[degree] == 0){
+            degree--;
+        }
+    }
+
+    private static boolean fitsDense(int terms, int degree){
+        return degree < SMALL_DEGREE || terms >= (degree + 1) * DENSE_FILL;
+    }
+
+    private void rebalance(){
+        // Picks the layout which suits the current fill ratio.
+        if(dense != null){
+            if(degree >= SMALL_DEGREE && terms < (degree + 1) * SPARSE_FILL){
+                toSparse();
+            }
+        } else if(fitsDense(terms, degree)){
+            toDense();
+        }
+    }
+
+    private void toSparse(){
+        int[] exp = new int[Math.max(4, terms)];
+        double[] coeff = new double[exp.length];
+        copyTerms(exp, coeff);
+        exponents = exp;
+        coefficients = coeff;
+        dense = null;
+    }
+
+    private void toDense(){
+        double[] array = new double[Math.max(SMALL_DEGREE, degree + 1)];
+        for(int i = 0; i < terms; i++){
+            array[exponents[i]] = coefficients[i];
+        }
+        dense = array;
+        exponents = null;
+        coefficients = null;
+    }
+
+    /**
+     * Returns the size in bytes of the arrays holding the terms, including
+     * unused capacity and any staged changes but not object headers.
+     */
+    long storageBytes(){
+        long bytes = dense != null ? 8L * dense.length : 12L * exponents.length;
+        return pendingKeys == null ? bytes : bytes + 12L * pendingKeys.length;
+    }
+
+    /**
+     * Returns a new array of the coefficients indexed by exponent, of length
+     * degree + 1, whatever the layout.
+     */
+    double[] toDenseArray(){
+        flush();
+        if(dense != null){
+            return Arrays.copyOf(dense, degree + 1);
+        }
+        double[] array = new double[degree + 1];
+        for(int i = 0; i < terms; i++){
+            array[exponents[i]] = coefficients[i];
+        }
+        return array;
+    }
+
+    /**
+     * Fills the arrays with this polynomial's terms in descending order of
+     * exponent, whatever the layout. Both must hold at least terms() entries.
+     */
+    void copyTerms(int[] exp, double[] coeff){
+        flush();
+        if(dense != null){
+            for(int e = degree, j = 0; e >= 0; e--){
+                if(dense[e] != 0){
+                    exp[j] = e;
+                    coeff[j] = dense[e];
+                    j++;
+                }
+            }
         } else {
-            // Recurse
-            addTerm(current, add, current.next);
-        }            
+            System.arraycopy(exponents, 0, exp, 0, terms);
+            System.arraycopy(coefficients, 0, coeff, 0, terms);
+        }
     }
-    
+
     /**
-     * Deletes a term from the polynomial expression and returns that term's 
+     * Deletes a term from the polynomial expression and returns that term's
      * coefficient.
-     * 
+     *
      * @param the exponent of the term to be deleted.
      * @return the coefficient of the deleted term, 0.0 if that term does not exist.
      */
     public double deleteTerm(int exp){
-        if(front == null){
-            return 0.0;
-        } else {
-            Node node = new Node (1.0, exp);
-            if(front.exponent == node.exponent){
-                node = front;
-                this.front = front.next;
-                terms--;
-                return node.coefficient;
-            }
-            return deleteTerm(front, node, front.next);
-        }
+        long start = PolynomialMetrics.start();
+        double coef = removeTerm(exp);
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.DELETE_TERM, start, this);
+        return coef;
     }
-    
-    private double deleteTerm(Node previous, Node check, Node current){
-        // Recurses through the linked list to find and delete the specified term.
-        if(current == null){
-            return 0.0;
-        }
-        if(check.exponent == current.exponent){
-            previous.next = current.next;
-            this.terms--;
-            if(check.exponent == 0){
-                last = previous;
+
+    private double removeTerm(int exp){
+        double coef;
+        if(dense != null){
+            if(exp < 0 || exp > degree || dense[exp] == 0){
+                return 0.0;
+            }
+            unshare();
+            coef = dense[exp];
+            dense[exp] = 0;
+            terms--;
+            if(exp == degree){
+                trimDegree();
+            }
+        } else if(indexed){
+            coef = coefficientOf(exp);
+            if(coef != 0){
+                stage(exp, coef, 0.0);
+            }
+            return coef;
+        } else {
+            int i = indexOf(exp);
+            if(i < 0){
+                return 0.0;
             }
-            return current.coefficient;
+            unshare();
+            coef = coefficients[i];
+            removeSparse(i);
         }
-        // Recurse
-        return deleteTerm(current, check, current.next);
+        rebalance();
+        return coef;
     }
-    
+
     /**
      * Returns the coefficient value of the specified term.
-     * 
+     *
      * @param exp the exponent of the term being searched for.
      * @return the coefficient of the specified term.
      */
     public double getCoefficient(int exp){
-        if(front == null){
-            return 0.0;
-        }
-        if(front.exponent == exp){
-            return front.coefficient;
-        }
-        return getCoefficient(front.next, exp);
+        long start = PolynomialMetrics.start();
+        double coef = coefficientOf(exp);
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.GET_COEFFICIENT, start, this);
+        return coef;
     }
-    
-    private double getCoefficient(Node node, int exp){
-        // Recurses through the list while searching.
-        if(node == null){
-            return 0.0;
+
+    private double coefficientOf(int exp){
+        if(dense != null){
+            return exp < 0 || exp > degree ? 0.0 : dense[exp];
         }
-        if(node.exponent == exp){
-            return node.coefficient;
+        if(pendingSize > 0 && exp >= 0){
+            int slot = pendingSlot(exp);
+            if(slot >= 0){
+                return pendingValues[slot];
+            }
         }
-        // Recurse
-        return getCoefficient(node.next, exp);
+        int i = indexOf(exp);
+        return i < 0 ? 0.0 : coefficients[i];
     }
-    
+
     /**
-     * Plugs in a value for x and evaluates the expression.
-     * 
+     * Plugs in a value for x and evaluates the expression. Uses Horner's
+     * scheme, stepping over gaps between exponents with a single power.
+     *
      * @param x the x value.
      * @return the evaluated expression's numerical value.
      */
     public double evaluate(double x){
-        if(front == null){
+        long start = PolynomialMetrics.start();
+        double result = horner(x);
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.EVALUATE, start, this);
+        return result;
+    }
+
+    private double horner(double x){
+        flush();
+        if(terms == 0){
             return 0.0;
         }
-        return evaluate(front, x);
+        double result = 0.0;
+        if(dense != null){
+            for(int e = degree; e >= 0; e--){
+                result = result * x + dense[e];
+            }
+            return result;
+        }
+        for(int i = 0; i < terms - 1; i++){
+            result = (result + coefficients[i]) * power(x, exponents[i] - exponents[i + 1]);
+        }
+        result += coefficients[terms - 1];
+        return result * power(x, exponents[terms - 1]);
     }
-    
-    private double evaluate(Node node, double x){
-        // Recurses through the list to evaluate the expression.
-        if(node == null){
-            return 0.0;
+
+    /**
+     * Evaluates the expression at every point of xs, storing p(xs[i]) in
+     * out[i]. Points are processed in blocks, with each Horner step applied
+     * across the whole block in a simple loop the JIT can vectorize. The
+     * arithmetic per point is the same as evaluate(double), so the results are
+     * identical. xs and out may be the same array.
+     *
+     * @param xs the x values.
+     * @param out the array receiving the values, at least as long as xs.
+     * @throws NullPointerException if either array is null.
+     * @throws IllegalArgumentException if out is shorter than xs.
+     */
+    public void evaluate(double[] xs, double[] out){
+        if(out.length < xs.length) throw new IllegalArgumentException();
+        flush();
+        double[] block = new double[Math.min(BLOCK, xs.length)];
+        for(int start = 0; start < xs.length; start += BLOCK){
+            int n = Math.min(BLOCK, xs.length - start);
+            evaluateBlock(xs, start, n, block);
+            System.arraycopy(block, 0, out, start, n);
+        }
+    }
+
+    /**
+     * Evaluates the expression at each of the remaining values of xs and puts
+     * the results into out. Both buffers have their positions advanced by the
+     * number of values, as with a bulk get and put. Results are identical to
+     * evaluate(double).
+     *
+     * @param xs the buffer of x values.
+     * @param out the buffer receiving the values.
+     * @throws NullPointerException if either buffer is null.
+     * @throws BufferOverflowException if out has fewer remaining
+     * values than xs.
+     */
+    public void evaluate(DoubleBuffer xs, DoubleBuffer out){
+        if(out.remaining() < xs.remaining()) throw new BufferOverflowException();
+        flush();
+        double[] points = new double[Math.min(BLOCK, xs.remaining())];
+        double[] block = new double[points.length];
+        while(xs.hasRemaining()){
+            int n = Math.min(BLOCK, xs.remaining());
+            xs.get(points, 0, n);
+            evaluateBlock(points, 0, n, block);
+            out.put(block, 0, n);
         }
-        // Recurse
-        return Math.pow(x, node.exponent)*node.coefficient + 
-               (evaluate(node.next, x));
     }
-    
+
+    /**
+     * Evaluates the expression at every point, returning the values in a new
+     * array. Points are evaluated by Horner's scheme in blocks, as by
+     * evaluate(double[], double[]), in O(n) time per point for n terms.
+     *
+     * @param points the x values.
+     * @return an array holding p(points[i]) at index i.
+     * @throws NullPointerException if points is null.
+     */
+    public double[] evaluateAll(double[] points){
+        double[] out = new double[points.length];
+        evaluate(points, out);
+        return out;
+    }
+
+    private void evaluateBlock(double[] xs, int start, int n, double[] acc){
+        // Horner's scheme run across n points at once, see evaluate(double).
+        Arrays.fill(acc, 0, n, 0.0);
+        if(terms == 0){
+            return;
+        }
+        if(dense != null){
+            for(int e = degree; e >= 0; e--){
+                double coef = dense[e];
+                for(int j = 0; j < n; j++){
+                    acc[j] = acc[j] * xs[start + j] + coef;
+                }
+            }
+            return;
+        }
+        for(int i = 0; i < terms - 1; i++){
+            double coef = coefficients[i];
+            int gap = exponents[i] - exponents[i + 1];
+            for(int j = 0; j < n; j++){
+                acc[j] = (acc[j] + coef) * power(xs[start + j], gap);
+            }
+        }
+        double coef = coefficients[terms - 1];
+        int exp = exponents[terms - 1];
+        for(int j = 0; j < n; j++){
+            acc[j] = (acc[j] + coef) * power(xs[start + j], exp);
+        }
+    }
+
+    /**
+     * Evaluates both the expression and its derivative at x in a single pass,
+     * without building the derivative polynomial.
+     *
+     * @param x the x value.
+     * @return a two element array holding p(x) followed by p'(x).
+     */
+    public double[] evaluateWithDerivative(double x){
+        flush();
+        double value = 0.0;
+        double slope = 0.0;
+        if(dense != null){
+            for(int e = degree; e >= 0; e--){
+                slope = slope * x + value;
+                value = value * x + dense[e];
+            }
+            return new double[] {value, slope};
+        }
+        // Each step turns q into q * x^g + c, so the derivative becomes
+        // q' * x^g + q * g * x^(g - 1).
+        int previous = degree;
+        for(int i = 0; i <= terms; i++){
+            int exp = i < terms ? exponents[i] : 0;
+            int gap = previous - exp;
+            if(gap > 0){
+                double step = power(x, gap - 1);
+                slope = slope * step * x + value * gap * step;
+                value = value * step * x;
+            }
+            if(i < terms){
+                value += coefficients[i];
+            }
+            previous = exp;
+        }
+        return new double[] {value, slope};
+    }
+
+    /**
+     * Returns an evaluator specialized to the current terms of this
+     * polynomial, for polynomials evaluated very many times. Up to 64 Horner
+     * steps are unrolled into a chain of method handles with the coefficients
+     * and exponent gaps as constants, which the JIT compiles to straight-line
+     * code when the evaluator itself is a constant to it, as when held in a
+     * static final field. The evaluator is cached, so repeated calls return the same one
+     * until this polynomial is changed. Changing the polynomial does not
+     * affect evaluators already returned. Results are identical to
+     * evaluate(double).
+     *
+     * @return a function from x to the value of this polynomial at x.
+     */
+    public DoubleUnaryOperator compile(){
+        DoubleUnaryOperator result = compiled;
+        if(result == null){
+            flush();
+            if(dense != null){
+                result = PolynomialCompiler.compileDense(toDenseArray());
+            } else {
+                int[] exp = new int[terms];
+                double[] coeff = new double[terms];
+                copyTerms(exp, coeff);
+                result = PolynomialCompiler.compileSparse(exp, coeff);
+            }
+            compiled = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns x^n for n >= 0 by repeated squaring, which is much cheaper than
+     * Math.pow for the small gaps between exponents that are most common.
+     */
+    static double power(double x, int n){
+        double result = 1.0;
+        while(n > 0){
+            if((n & 1) != 0){
+                result *= x;
+            }
+            x *= x;
+            n >>= 1;
+        }
+        return result;
+    }
+
     /**
      * Checks for content equality.
-     * 
+     *
      * @param o the object to be compared for equality.
      * @return true if the two polynomials are equal.
      */
     public boolean equals(Object o){
-        if(front == null){
-            return o == null;
-        }
         if(this == o){
             return true;
         }
         // If the object isn't a polynomial object it will immediately fail this
-        // check and hit the false return;
+        // check and hit the false return. The layouts may differ between two
+        // equal polynomials, so terms are compared by exponent.
         if((o instanceof Polynomial)){
-           Polynomial test = (Polynomial)o;
-           if(terms() == test.terms()){
-               if(this.front.coefficient == test.front.coefficient &&
-                  this.front.exponent == test.front.exponent){
-                   return equals(front.next, test.front.next);
+            Polynomial test = (Polynomial)o;
+            flush();
+            test.flush();
+            if(terms() != test.terms() || degree != test.degree){
+                return false;
+            }
+            if(dense != null){
+                for(int e = 0; e <= degree; e++){
+                    if(dense[e] != test.coefficientOf(e)){
+                        return false;
+                    }
+                }
+            } else {
+                for(int i = 0; i < terms; i++){
+                    if(coefficients[i] != test.coefficientOf(exponents[i])){
+                        return false;
+                    }
                 }
             }
-        }
-        return false;    
-    }
-    
-    private boolean equals(Node main, Node test){
-        // Recurses through the list to continue comparing terms.
-        if(main == null && test == null){
             return true;
         }
-        if(main.coefficient == test.coefficient &&
-           main.exponent == test.exponent){
-               // Recurse
-               return equals(main.next, test.next);
-        }
         return false;
     }
-    
+
+    /**
+     * Returns a hash code consistent with equals, whatever the layout.
+     *
+     * @return the hash code of this polynomial.
+     */
+    public int hashCode(){
+        flush();
+        int hash = 1;
+        if(dense != null){
+            for(int e = degree; e >= 0; e--){
+                if(dense[e] != 0){
+                    hash = 31 * (31 * hash + e) + Double.hashCode(dense[e]);
+                }
+            }
+        } else {
+            for(int i = 0; i < terms; i++){
+                hash = 31 * (31 * hash + exponents[i]) + Double.hashCode(coefficients[i]);
+            }
+        }
+        return hash;
+    }
+
     /**
-     * Calculates the derivative of the polynomial.
-     * 
+     * Calculates the derivative of the polynomial. This polynomial is not
+     * modified.
+     *
      * @return the derived polynomial expression.
-     * @throws IllegalStateException if a null polynomial is attempted to be derived.
      */
     public Polynomial derivative(){
-        if(front == null) throw new IllegalStateException();
-        String term = "" + front.coefficient * front.exponent + " " + --front.exponent;
-        Polynomial newPoly = new Polynomial(term);
-        derive(this.front.next, newPoly);
-        return newPoly;
-    }
-    
-    private void derive(Node node, Polynomial poly){
-        // Recursive function to calculate derivative.
-        if(node == null){
-            return;
+        return derivative(1);
+    }
+
+    /**
+     * Calculates the nth derivative of the polynomial in a single pass, with
+     * the result's arrays allocated once at their final size. This polynomial
+     * is not modified.
+     *
+     * @param n the number of times to differentiate, 0 giving a copy.
+     * @return the nth derivative.
+     * @throws IllegalArgumentException if n is negative.
+     */
+    public Polynomial derivative(int n){
+        if(n < 0) throw new IllegalArgumentException();
+        long start = PolynomialMetrics.start();
+        flush();
+        Polynomial result;
+        if(dense != null){
+            double[] d = new double[Math.max(0, degree + 1 - n)];
+            for(int e = n; e <= degree; e++){
+                if(dense[e] != 0){
+                    d[e - n] = dense[e] * fallingFactorial(e, n);
+                }
+            }
+            result = fromDense(d);
+        } else {
+            // Terms of degree below n vanish, and they come last.
+            int count = 0;
+            while(count < terms && exponents[count] >= n){
+                count++;
+            }
+            int[] exp = new int[count];
+            double[] coeff = new double[count];
+            for(int i = 0; i < count; i++){
+                exp[i] = exponents[i] - n;
+                coeff[i] = coefficients[i] * fallingFactorial(exponents[i], n);
+            }
+            result = fromSparse(exp, coeff, count);
+        }
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.DERIVATIVE, start, result);
+        return result;
+    }
+
+    private static double fallingFactorial(int e, int n){
+        // e (e - 1) ... (e - n + 1), the factor the nth derivative brings down.
+        double product = 1;
+        for(int k = 0; k < n; k++){
+            product *= e - k;
+        }
+        return product;
+    }
+
+    /**
+     * Calculates the antiderivative of the polynomial with the given constant
+     * of integration, in a single pass. This polynomial is not modified.
+     *
+     * @param constant the constant term of the result.
+     * @return the antiderivative.
+     * @throws ArithmeticException if the degree is Integer.MAX_VALUE, so the
+     * result's would not fit in an int.
+     */
+    public Polynomial integral(double constant){
+        flush();
+        if(degree == Integer.MAX_VALUE) throw new ArithmeticException("Exponent overflow.");
+        if(dense != null){
+            double[] d = new double[degree + 2];
+            d[0] = constant;
+            for(int e = 0; e <= degree; e++){
+                d[e + 1] = dense[e] / (e + 1);
+            }
+            return fromDense(d);
         }
-        if(node.exponent - 1 >= 0){
-            poly.addTerm(node.coefficient * node.exponent, --node.exponent);
-            // Recurse
-            derive(node.next, poly);
+        int[] exp = new int[terms + 1];
+        double[] coeff = new double[terms + 1];
+        int count = 0;
+        for(int i = 0; i < terms; i++){
+            // Very small coefficients may underflow to zero.
+            double c = coefficients[i] / (exponents[i] + 1.0);
+            if(c != 0){
+                exp[count] = exponents[i] + 1;
+                coeff[count++] = c;
+            }
+        }
+        if(constant != 0){
+            exp[count] = 0;
+            coeff[count++] = constant;
+        }
+        return fromSparse(exp, coeff, count);
+    }
+
+    /**
+     * Integrates the polynomial from a to b without building the
+     * antiderivative, by evaluating it term by term with Horner's scheme.
+     *
+     * @param a the lower limit.
+     * @param b the upper limit.
+     * @return the integral from a to b, negative if b is less than a.
+     */
+    public double definiteIntegral(double a, double b){
+        return antiderivative(b) - antiderivative(a);
+    }
+
+    private double antiderivative(double x){
+        // As horner(x), with coefficients c / (e + 1) and exponents e + 1.
+        flush();
+        if(terms == 0){
+            return 0.0;
+        }
+        double result = 0.0;
+        if(dense != null){
+            for(int e = degree; e >= 0; e--){
+                result = result * x + dense[e] / (e + 1);
+            }
+            return result * x;
+        }
+        for(int i = 0; i < terms - 1; i++){
+            result = (result + coefficients[i] / (exponents[i] + 1.0))
+                * power(x, exponents[i] - exponents[i + 1]);
+        }
+        result += coefficients[terms - 1] / (exponents[terms - 1] + 1.0);
+        return result * power(x, exponents[terms - 1]) * x;
+    }
+
+    /**
+     * Returns the composition p(q(x)) of this polynomial p with q. A
+     * monomial q is substituted term by term. Otherwise p is split in halves
+     * recursively and the halves are recombined with powers of q by fast
+     * multiplication, see PolynomialComposition, so large compositions cost
+     * O(M(nm) log n) for degrees n and m rather than the O(n M(nm)) of
+     * expanding by Horner's scheme. Neither polynomial is modified.
+     *
+     * @param q the polynomial substituted for x.
+     * @return the composition.
+     * @throws NullPointerException if q is null.
+     * @throws ArithmeticException if the degree of the result would be too
+     * large for an int.
+     */
+    public Polynomial compose(Polynomial q){
+        if(q == null) throw new NullPointerException();
+        flush();
+        q.flush();
+        if(degree <= 0){
+            return new Polynomial(this);
+        }
+        if(q.degree <= 0){
+            return fromDense(new double[] {horner(q.coefficientOf(0))});
+        }
+        if((long)degree * q.degree > Integer.MAX_VALUE - 8){
+            throw new ArithmeticException("Exponent overflow.");
+        }
+        if(q.terms == 1){
+            // (c x^k)^e is c^e x^(ek), so the terms stay in descending order.
+            double c = q.coefficientOf(q.degree);
+            int[] exp = new int[terms];
+            double[] coeff = new double[terms];
+            copyTerms(exp, coeff);
+            int count = 0;
+            for(int i = 0; i < terms; i++){
+                double value = coeff[i] * power(c, exp[i]);
+                if(value != 0){
+                    exp[count] = exp[i] * q.degree;
+                    coeff[count++] = value;
+                }
+            }
+            return fromSparse(exp, coeff, count);
+        }
+        return fromDense(PolynomialComposition.compose(toDenseArray(), q.toDenseArray(),
+                                                       PolynomialMultiplier.getDefault()));
+    }
+
+    /**
+     * Returns this polynomial re-centred at c, p(x + c), whose coefficients
+     * are the Taylor coefficients of p at c. Computed in place in a single
+     * array by repeated synthetic division, in O(n^2) for degree n. This
+     * polynomial is not modified.
+     *
+     * @param c the amount to shift by.
+     * @return the shifted polynomial.
+     */
+    public Polynomial shift(double c){
+        flush();
+        if(c == 0 || degree <= 0){
+            return new Polynomial(this);
         }
+        return fromDense(PolynomialComposition.shift(toDenseArray(), c));
     }
-    
+
     /**
      * Returns a String representation of this polynomial.
-     * 
+     *
      * @return a string representation of this polynomial.
      */
     public String toString(){
-        String string = "";
+        StringBuilder string = new StringBuilder();
+        try{
+            appendTo(string);
+        } catch (IOException e){
+            // A StringBuilder never throws.
+            throw new AssertionError(e);
+        }
+        return string.toString();
+    }
+
+    /**
+     * Writes the String representation of this polynomial, as returned by
+     * toString, to an Appendable. The terms are streamed one at a time, so
+     * nothing the size of the whole polynomial is built.
+     *
+     * @param out the destination of the text.
+     * @throws IOException if out throws.
+     * @throws NullPointerException if out is null.
+     */
+    public void appendTo(Appendable out) throws IOException{
+        if(out == null) throw new NullPointerException();
+        flush();
         if(terms == 0){
-            string = "0.0";
-            return string;
-        }
-        if(front.exponent > 0){
-            if(front.coefficient == 0){
-                string += front.coefficient;
-            } else if(front.coefficient == 1){
-                string += "x";
-            } else if(front.coefficient == -1){
-                string += "-x";
+            out.append("0.0");
+            return;
+        }
+        double coef = coefficientOf(degree);
+        if(degree > 0){
+            if(coef == 1){
+                out.append("x");
+            } else if(coef == -1){
+                out.append("-x");
             } else {
-                string += front.coefficient + "x";
+                out.append(String.valueOf(coef)).append("x");
             }
-            string += "^" + front.exponent;
+            out.append("^").append(String.valueOf(degree));
         } else {
-            string += front.coefficient;
-            return string;
-        }
-        return toString(string, front.next);
-    }
-    
-    private String toString(String string, Node node){
-        // Recurses to build String.
-        if(node == null){
-            return string;
-        }
-        if(node.coefficient == 0){
-            string += "";
-        } else if(node.coefficient < -1){
-            string += " - " + -1*node.coefficient;
-        } else if(node.coefficient == 1){
-            string += " + ";
-            if(node.exponent == 0){
-                string += node.coefficient;
-            }
-        } else if(node.coefficient == -1){
-            string += " - x";
+            out.append(String.valueOf(coef));
+            return;
+        }
+        if(dense != null){
+            for(int e = degree - 1; e >= 0; e--){
+                if(dense[e] != 0){
+                    appendTerm(out, dense[e], e);
+                }
+            }
+        } else {
+            for(int i = 1; i < terms; i++){
+                appendTerm(out, coefficients[i], exponents[i]);
+            }
+        }
+    }
+
+    private static void appendTerm(Appendable out, double coef, int exp)
+            throws IOException{
+        // Formats one of the terms following the leading term.
+        if(coef < -1){
+            out.append(" - ").append(String.valueOf(-1*coef));
+        } else if(coef == 1 || coef == -1){
+            out.append(coef == 1 ? " + " : " - ");
+            if(exp == 0){
+                out.append("1.0");
+            }
         } else {
-            string += " + " + node.coefficient;
+            out.append(" + ").append(String.valueOf(coef));
         }
-        if(node.exponent > 1){
-            string += "x^" + node.exponent;
-        } else if(node.exponent == 1){
-            string += "x";
+        if(exp > 1){
+            out.append("x^").append(String.valueOf(exp));
+        } else if(exp == 1){
+            out.append("x");
         }
-            
-        // Recurse.
-        return toString(string, node.next);
     }
-    
+
     /**
      * Returns a String representation of this polynomial. The format is in
      * ascending order of degree, beginning with constant term if such exists.
-     * 
+     * A polynomial which is only a non-zero constant is described by the
+     * empty string.
+     *
      * @return a String representation of this polynomial.
      */
     public String description(){
-        String string = "";
-        if(front.coefficient == 0){
-            string += "0.0";
-            return string;
+        StringBuilder string = new StringBuilder();
+        try{
+            describeTo(string);
+        } catch (IOException e){
+            // A StringBuilder never throws.
+            throw new AssertionError(e);
         }
-        if(front.exponent > 0){
-            string += "exponent " + front.exponent + ", coefficient " 
-                      + front.coefficient;
+        return string.toString();
+    }
+
+    /**
+     * Writes the description of this polynomial, as returned by description,
+     * to an Appendable one term at a time.
+     *
+     * @param out the destination of the text.
+     * @throws IOException if out throws.
+     * @throws NullPointerException if out is null.
+     */
+    public void describeTo(Appendable out) throws IOException{
+        if(out == null) throw new NullPointerException();
+        flush();
+        if(terms == 0){
+            out.append("0.0");
+            return;
+        }
+        if(degree == 0){
+            // A constant alone has always been described by the empty string.
+            return;
+        }
+        boolean first = true;
+        if(dense != null){
+            for(int e = 0; e <= degree; e++){
+                if(dense[e] != 0){
+                    describeTerm(out, dense[e], e, first);
+                    first = false;
+                }
+            }
+        } else {
+            for(int i = terms - 1; i >= 0; i--){
+                describeTerm(out, coefficients[i], exponents[i], first);
+                first = false;
+            }
         }
-        return description(string, front.next);
     }
-    
-    private String description(String string, Node node){
-        // Recurses through list to build description.
-        if(node == null){
-            return string;
+
+    private static void describeTerm(Appendable out, double coef, int exp,
+                                     boolean first) throws IOException{
+        if(!first){
+            out.append("\n");
         }
-        if(node.exponent == 0){
-            string = "constant term " + node.coefficient + "\n" + string;
+        if(exp == 0){
+            out.append("constant term ").append(String.valueOf(coef));
         } else {
-            string = "exponent " + node.exponent + ", coefficient " 
-                     + node.coefficient + "\n" + string;
+            out.append("exponent ").append(String.valueOf(exp))
+               .append(", coefficient ").append(String.valueOf(coef));
         }
-        // Recurse
-        return description(string, node.next);
     }
-    
+
     /**
      * Static method which will take two polynomials and find their sum.
-     * 
+     *
      * @param a the first polynomial.
      * @param b the second polynomial.
      * @return the new polynomial representing the sum of the other two.
-     * 
+     *
      * @throws NullPointerException if either polynomial is null.
      */
     public static Polynomial sum(Polynomial a, Polynomial b){
         if(a == null || b == null) throw new NullPointerException();
-        Polynomial sum = new Polynomial(a);
-        Polynomial sum2 = new Polynomial(b);
-        for(int i = 0; sum2.terms > 0; i++){
-            if(sum2.getCoefficient(i) != 0){
-                sum.addTerm(sum2.deleteTerm(i), i);
+        long start = PolynomialMetrics.start();
+        Polynomial result = merge(a, b, 1.0);
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.SUM, start, result);
+        return result;
+    }
+
+    private static Polynomial merge(Polynomial a, Polynomial b, double sign){
+        // Adds sign * b to a in a single pass over both, leaving them unchanged.
+        a.flush();
+        b.flush();
+        if(a.dense != null && b.dense != null){
+            double[] result = Arrays.copyOf(a.dense, Math.max(a.degree, b.degree) + 1);
+            for(int e = 0; e <= b.degree; e++){
+                result[e] += sign * b.dense[e];
+            }
+            return fromDense(result);
+        }
+        int[] expA = new int[a.terms];
+        double[] coeffA = new double[a.terms];
+        a.copyTerms(expA, coeffA);
+        int[] expB = new int[b.terms];
+        double[] coeffB = new double[b.terms];
+        b.copyTerms(expB, coeffB);
+        int[] exp = new int[a.terms + b.terms];
+        double[] coeff = new double[exp.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        // Both term lists are descending, so take whichever head is larger.
+        while(i < expA.length || j < expB.length){
+            if(j == expB.length || (i < expA.length && expA[i] > expB[j])){
+                exp[count] = expA[i];
+                coeff[count++] = coeffA[i++];
+            } else if(i == expA.length || expB[j] > expA[i]){
+                exp[count] = expB[j];
+                coeff[count++] = sign * coeffB[j++];
+            } else {
+                double c = coeffA[i] + sign * coeffB[j];
+                if(c != 0){
+                    exp[count] = expA[i];
+                    coeff[count++] = c;
+                }
+                i++;
+                j++;
+            }
+        }
+        return fromSparse(exp, coeff, count);
+    }
+
+    /**
+     * Adds a polynomial to this one, modifying this polynomial rather than
+     * creating a new one.
+     *
+     * @param p the polynomial to add, which is not modified unless it is this
+     * polynomial.
+     * @throws NullPointerException if p is null.
+     */
+    public void addInPlace(Polynomial p){
+        if(p == null) throw new NullPointerException();
+        accumulate(p, 1.0);
+    }
+
+    /**
+     * Subtracts a polynomial from this one, modifying this polynomial rather
+     * than creating a new one.
+     *
+     * @param p the polynomial to subtract, which is not modified unless it is
+     * this polynomial.
+     * @throws NullPointerException if p is null.
+     */
+    public void subtractInPlace(Polynomial p){
+        if(p == null) throw new NullPointerException();
+        accumulate(p, -1.0);
+    }
+
+    private void accumulate(Polynomial p, double sign){
+        flush();
+        p.flush();
+        if(dense == null || !fitsDense(terms + p.terms, Math.max(degree, p.degree))){
+            assign(merge(this, p, sign));
+            return;
+        }
+        // Stays dense, so add each term of p straight into the array.
+        unshare();
+        if(p.dense != null){
+            for(int e = p.degree; e >= 0; e--){
+                if(p.dense[e] != 0){
+                    addDense(sign * p.dense[e], e);
+                }
+            }
+        } else {
+            for(int i = 0; i < p.terms; i++){
+                addDense(sign * p.coefficients[i], p.exponents[i]);
             }
         }
-        return sum;
+        rebalance();
     }
-    
+
+    /**
+     * Multiplies every coefficient of this polynomial by a factor, modifying
+     * this polynomial rather than creating a new one.
+     *
+     * @param factor the factor to multiply by.
+     */
+    public void scaleInPlace(double factor){
+        flush();
+        unshare();
+        if(dense != null){
+            for(int e = 0; e <= degree; e++){
+                if(dense[e] != 0){
+                    dense[e] *= factor;
+                    // A zero factor or underflow removes the term.
+                    if(dense[e] == 0){
+                        terms--;
+                    }
+                }
+            }
+            trimDegree();
+        } else {
+            int count = 0;
+            for(int i = 0; i < terms; i++){
+                double c = coefficients[i] * factor;
+                if(c != 0){
+                    exponents[count] = exponents[i];
+                    coefficients[count++] = c;
+                }
+            }
+            terms = count;
+            degree = terms == 0 ? -1 : exponents[0];
+        }
+        rebalance();
+    }
+
     /**
      * Static method which will take two polynomials and find their product.
-     * 
+     * Uses the default PolynomialMultiplier.
+     *
      * @param a the first polynomial.
      * @param b the second polynomial.
      * @return the new polynomial representing the product of the other two.
-     * 
+     *
      * @throws NullPointerException if either polynomial is null.
      */
     public static Polynomial product(Polynomial a, Polynomial b){
+        return product(a, b, PolynomialMultiplier.getDefault());
+    }
+
+    /**
+     * Static method which will take two polynomials and find their product.
+     * Dense operands are multiplied by the given multiplier, which picks
+     * schoolbook, Karatsuba or FFT multiplication by size. Sparse operands are
+     * multiplied term by term.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @param multiplier the multiplier used for dense operands.
+     * @return the new polynomial representing the product of the other two.
+     *
+     * @throws NullPointerException if any argument is null.
+     */
+    public static Polynomial product(Polynomial a, Polynomial b,
+                                     PolynomialMultiplier multiplier){
+        if(a == null || b == null || multiplier == null) throw new NullPointerException();
+        long start = PolynomialMetrics.start();
+        Polynomial result = multiply(a, b, multiplier);
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.PRODUCT, start, result);
+        return result;
+    }
+
+    private static Polynomial multiply(Polynomial a, Polynomial b, PolynomialMultiplier multiplier){
+        a.flush();
+        b.flush();
+        if(a.terms == 0 || b.terms == 0){
+            return new Polynomial();
+        }
+        if(a.dense != null && b.dense != null){
+            return fromDense(multiplier.multiply(a.dense, a.degree + 1,
+                                                 b.dense, b.degree + 1));
+        }
+        int[] expA = new int[a.terms];
+        double[] coeffA = new double[a.terms];
+        a.copyTerms(expA, coeffA);
+        int[] expB = new int[b.terms];
+        double[] coeffB = new double[b.terms];
+        b.copyTerms(expB, coeffB);
+        if((long)a.terms * b.terms >= a.degree + b.degree + 1){
+            // Enough pairs to fill most of the result, so accumulate straight
+            // into a dense array.
+            double[] result = new double[a.degree + b.degree + 1];
+            for(int i = 0; i < expA.length; i++){
+                for(int j = 0; j < expB.length; j++){
+                    result[expA[i] + expB[j]] += coeffA[i] * coeffB[j];
+                }
+            }
+            return fromDense(result);
+        }
+        if(expA.length > expB.length){
+            return sparseProduct(expB, coeffB, expA, coeffA);
+        }
+        return sparseProduct(expA, coeffA, expB, coeffB);
+    }
+
+    /**
+     * Finds the product of two polynomials using the threads of a fork/join
+     * pool. The longer operand is cut into chunks, each chunk is multiplied by
+     * the other operand as its own task, and the partial products are added
+     * up in a fixed order. The chunks and the order depend only on the
+     * operands, so the result is the same whatever the parallelism of the pool.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @param pool the pool to run the tasks in.
+     * @return the new polynomial representing the product of the other two.
+     *
+     * @throws NullPointerException if any argument is null.
+     */
+    public static Polynomial parallelProduct(Polynomial a, Polynomial b,
+                                             ForkJoinPool pool){
+        if(a == null || b == null || pool == null) throw new NullPointerException();
+        a.flush();
+        b.flush();
+        if(a.terms == 0 || b.terms == 0){
+            return new Polynomial();
+        }
+        if(a.terms < b.terms){
+            Polynomial t = a; a = b; b = t;
+        }
+        if(a.dense != null && b.dense != null){
+            return fromDense(PolynomialParallel.multiply(a.toDenseArray(),
+                                                         b.toDenseArray(), pool));
+        }
+        int[] exp = new int[a.terms];
+        double[] coeff = new double[a.terms];
+        a.copyTerms(exp, coeff);
+        return PolynomialParallel.multiply(exp, coeff, b, pool);
+    }
+
+    /**
+     * Finds the sum of many polynomials using the threads of a fork/join pool.
+     * The polynomials are added pairwise in a balanced tree whose shape
+     * depends only on how many there are, so the result is the same whatever
+     * the parallelism of the pool.
+     *
+     * @param polynomials the polynomials to add.
+     * @param pool the pool to run the tasks in.
+     * @return the new polynomial representing the sum, zero if there are none.
+     *
+     * @throws NullPointerException if any argument or polynomial is null.
+     */
+    public static Polynomial parallelSum(Collection<? extends Polynomial> polynomials,
+                                         ForkJoinPool pool){
+        if(pool == null) throw new NullPointerException();
+        Polynomial[] array = polynomials.toArray(new Polynomial[0]);
+        for(Polynomial p : array){
+            if(p == null) throw new NullPointerException();
+            // Merge staged changes here, so the tasks only ever read.
+            p.flush();
+        }
+        if(array.length == 0){
+            return new Polynomial();
+        }
+        return PolynomialParallel.sum(array, pool);
+    }
+
+    /**
+     * Static method which divides one polynomial by another, giving the
+     * quotient and the remainder. The remainder has a lower degree than the
+     * divisor. Large divisions use Newton iteration on top of fast
+     * multiplication, small ones long division.
+     *
+     * @param a the dividend.
+     * @param b the divisor.
+     * @return a two element array holding the quotient followed by the
+     * remainder.
+     *
+     * @throws NullPointerException if either polynomial is null.
+     * @throws ArithmeticException if b is the zero polynomial.
+     */
+    public static Polynomial[] divideAndRemainder(Polynomial a, Polynomial b){
         if(a == null || b == null) throw new NullPointerException();
-        Polynomial prod = new Polynomial ("");
-        Node polyANode = a.front;
-        Node polyBNode = b.front;
-        while(polyANode != null){
-            while(polyBNode != null){
-                prod.addTerm(polyANode.coefficient * polyBNode.coefficient, 
-                             polyANode.exponent + polyBNode.exponent);
-                polyBNode = polyBNode.next;
-            }
-            polyANode = polyANode.next;
-            polyBNode = b.front;
-        }
-        return prod;
-    }
-    
-    /**
-     * Private inner class which constructs Node objects to create the linked list
-     * data structure. The fields of these nodes may be accessed directly by other
-     * objects of the Polynomial class, no accessor is required.
-     */
-    private class Node{
-        double coefficient;
-        int exponent;
-        Node next;
-        
-        /**
-         * Constructs a new Node.
-         * 
-         * @param coefficient the coefficient of the new term being created.
-         * @param exponent the exponent of the new term being created.
-         * 
-         * @throws IllegalArgumentException if the coefficient passed is 0.
-         */
-        public Node(double coefficient, int exponent){
-            if(coefficient == 0) throw new IllegalArgumentException();
-            this.coefficient = coefficient;
-            this.exponent = exponent;
-            this.next = null;
-        }
-    }
-}
\ No newline at end of file
+        if(b.terms() == 0) throw new ArithmeticException("Division by zero polynomial.");
+        long start = PolynomialMetrics.start();
+        double[][] result = PolynomialDivision.divide(a.toDenseArray(), b.toDenseArray());
+        Polynomial quotient = fromDense(result[0]);
+        PolynomialMetrics.finish(PolynomialMetrics.Operation.DIVIDE, start, quotient);
+        return new Polynomial[] {quotient, fromDense(result[1])};
+    }
+
+    /**
+     * Static method which divides one polynomial by another, discarding the
+     * remainder.
+     *
+     * @param a the dividend.
+     * @param b the divisor.
+     * @return the quotient.
+     *
+     * @throws NullPointerException if either polynomial is null.
+     * @throws ArithmeticException if b is the zero polynomial.
+     */
+    public static Polynomial divide(Polynomial a, Polynomial b){
+        return divideAndRemainder(a, b)[0];
+    }
+
+    /**
+     * Static method which finds the remainder of dividing one polynomial by
+     * another.
+     *
+     * @param a the dividend.
+     * @param b the divisor.
+     * @return the remainder, of lower degree than b.
+     *
+     * @throws NullPointerException if either polynomial is null.
+     * @throws ArithmeticException if b is the zero polynomial.
+     */
+    public static Polynomial remainder(Polynomial a, Polynomial b){
+        return divideAndRemainder(a, b)[1];
+    }
+
+    /**
+     * Static method which finds the greatest common divisor of two
+     * polynomials, scaled to have a leading coefficient of 1. Since the
+     * coefficients are floating point, a remainder counts as zero once all of
+     * its coefficients are within a relative 1e-9 of zero.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the monic gcd, or the zero polynomial if both are zero.
+     *
+     * @throws NullPointerException if either polynomial is null.
+     */
+    public static Polynomial gcd(Polynomial a, Polynomial b){
+        if(a == null || b == null) throw new NullPointerException();
+        return fromDense(PolynomialDivision.gcd(a.toDenseArray(), b.toDenseArray()));
+    }
+
+    /**
+     * Static method which finds the polynomial of lowest degree passing
+     * through the given points, by Newton's divided differences in O(n^2).
+     * The coefficients of an interpolating polynomial are very sensitive to
+     * rounding once there are more than a few dozen points: general data fit
+     * at up to about 50 Chebyshev points in [-1, 1], and fewer equally spaced
+     * ones. The result is checked at every point, and if it misses any by
+     * more than 1e-8 times the largest y value the interpolation fails rather
+     * than return it.
+     *
+     * @param xs the x values, all distinct.
+     * @param ys the y values, ys[i] belonging to xs[i].
+     * @return the interpolating polynomial, of degree less than xs.length.
+     *
+     * @throws NullPointerException if either array is null.
+     * @throws IllegalArgumentException if the arrays differ in length or an
+     * x value is repeated.
+     * @throws ArithmeticException if rounding keeps the result from fitting
+     * the points.
+     */
+    public static Polynomial interpolate(double[] xs, double[] ys){
+        if(xs.length != ys.length) throw new IllegalArgumentException();
+        double[] sorted = xs.clone();
+        Arrays.sort(sorted);
+        for(int i = 1; i < sorted.length; i++){
+            if(sorted[i] == sorted[i - 1]){
+                throw new IllegalArgumentException("Repeated x value " + sorted[i]);
+            }
+        }
+        double[] coeff = PolynomialMultipoint.interpolate(xs, ys);
+        if(coeff == null) throw new ArithmeticException("Interpolation is too ill-conditioned.");
+        return fromDense(coeff);
+    }
+
+    private static Polynomial sparseProduct(int[] expA, double[] coeffA,
+                                            int[] expB, double[] coeffB){
+        // Each term of a times all of b is a stream of terms in descending order.
+        // A heap over the heads of the streams yields the product terms in
+        // descending order, so equal exponents arrive together and are merged
+        // without any lookups.
+        int n = expA.length;
+        int[] next = new int[n]; // position in b of the head of each stream
+        int[] heap = new int[n]; // stream indices, largest head exponent on top
+        for(int i = 0; i < n; i++){
+            heap[i] = i;
+        }
+        int size = n; // heads are already ordered since expA is descending
+        int capacity = (int)Math.min((long)n * expB.length,
+                                     expA[0] + expB[0] + 1L);
+        int[] exp = new int[capacity];
+        double[] coeff = new double[capacity];
+        int count = 0;
+        while(size > 0){
+            int s = heap[0];
+            int e = expA[s] + expB[next[s]];
+            double c = coeffA[s] * coeffB[next[s]];
+            if(count > 0 && exp[count - 1] == e){
+                coeff[count - 1] += c;
+            } else {
+                if(count > 0 && coeff[count - 1] == 0){
+                    count--;
+                }
+                exp[count] = e;
+                coeff[count] = c;
+                count++;
+            }
+            if(++next[s] == expB.length){
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, size, next, expA, expB);
+        }
+        if(count > 0 && coeff[count - 1] == 0){
+            count--;
+        }
+        return fromSparse(exp, coeff, count);
+    }
+
+    private static void siftDown(int[] heap, int size, int[] next, int[] expA,
+                                 int[] expB){
+        int i = 0;
+        while(true){
+            int largest = i;
+            for(int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++){
+                if(expA[heap[child]] + expB[next[heap[child]]] >
+                   expA[heap[largest]] + expB[next[heap[largest]]]){
+                    largest = child;
+                }
+            }
+            if(largest == i){
+                return;
+            }
+            int t = heap[i];
+            heap[i] = heap[largest];
+            heap[largest] = t;
+            i = largest;
+        }
+    }
+
+    /**
+     * Creates a polynomial from a dense coefficient array, which the new
+     * polynomial takes ownership of.
+     */
+    static Polynomial fromDense(double[] coeff){
+        Polynomial poly = new Polynomial(coeff, null, null, coeff.length - 1, 0);
+        poly.trimDegree();
+        for(int e = 0; e <= poly.degree; e++){
+            if(coeff[e] != 0){
+                poly.terms++;
+            }
+        }
+        poly.rebalance();
+        return poly;
+    }
+
+    /**
+     * Creates a polynomial from the first count entries of sparse arrays, which
+     * the new polynomial takes ownership of. Exponents must be distinct and in
+     * descending order and coefficients must be non-zero.
+     */
+    static Polynomial fromSparse(int[] exp, double[] coeff, int count){
+        Polynomial poly = new Polynomial(null, exp, coeff, count == 0 ? -1 : exp[0], count);
+        poly.rebalance();
+        return poly;
+    }
+}
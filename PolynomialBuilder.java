@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+/**
+ * Collects the terms of a polynomial and creates the Polynomial in one step.
+ * Terms may be added in any order and with repeated exponents. When the
+ * polynomial is built the terms are sorted once, equal exponents are merged in
+ * the order they were added and terms which come to zero are dropped, which
+ * costs O(n log n) for n terms rather than an insertion per term.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class PolynomialBuilder{
+
+    private int[] exponents;
+    private double[] coefficients;
+    private int size;
+    private boolean ordered; // true while exponents are strictly descending
+
+    /**
+     * Constructs an empty builder.
+     */
+    public PolynomialBuilder(){
+        this(16);
+    }
+
+    /**
+     * Constructs an empty builder with room for the given number of terms.
+     *
+     * @param expectedTerms the number of terms expected to be added.
+     * @throws IllegalArgumentException if expectedTerms is negative.
+     */
+    public PolynomialBuilder(int expectedTerms){
+        if(expectedTerms < 0) throw new IllegalArgumentException();
+        exponents = new int[expectedTerms];
+        coefficients = new double[expectedTerms];
+        ordered = true;
+    }
+
+    /**
+     * Adds a term. A zero coefficient is accepted and simply contributes
+     * nothing.
+     *
+     * @param coef the coefficient of the term.
+     * @param exp the exponent of the term.
+     * @return this builder.
+     * @throws IllegalArgumentException if a negative exponent value is passed.
+     */
+    public PolynomialBuilder add(double coef, int exp){
+        if(exp < 0) throw new IllegalArgumentException();
+        if(size == exponents.length){
+            int capacity = Math.max(16, size * 2);
+            exponents = Arrays.copyOf(exponents, capacity);
+            coefficients = Arrays.copyOf(coefficients, capacity);
+        }
+        if(size > 0 && exponents[size - 1] <= exp){
+            ordered = false;
+        }
+        exponents[size] = exp;
+        coefficients[size] = coef;
+        size++;
+        return this;
+    }
+
+    /**
+     * Returns the number of terms added since the builder was created or
+     * last cleared, before any merging.
+     *
+     * @return the number of terms added.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Removes all added terms so the builder can be reused.
+     */
+    public void clear(){
+        size = 0;
+        ordered = true;
+    }
+
+    /**
+     * Creates a polynomial from the added terms. The builder is left unchanged.
+     *
+     * @return the new polynomial.
+     */
+    public Polynomial build(){
+        int[] exp = new int[size];
+        double[] coeff = new double[size];
+        int count = 0;
+        if(ordered){
+            // Already descending and distinct, only zeros need dropping.
+            for(int i = 0; i < size; i++){
+                if(coefficients[i] != 0){
+                    exp[count] = exponents[i];
+                    coeff[count] = coefficients[i];
+                    count++;
+                }
+            }
+            return Polynomial.fromSparse(exp, coeff, count);
+        }
+        // Sorting exponent and insertion index packed together keeps the sort
+        // on primitives and leaves equal exponents in the order they were added.
+        long[] keys = new long[size];
+        for(int i = 0; i < size; i++){
+            keys[i] = (long)exponents[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int i = size - 1;
+        while(i >= 0){
+            int e = (int)(keys[i] >>> 32);
+            // Find the first of the run of equal exponents, then sum forwards.
+            int first = i;
+            while(first > 0 && (int)(keys[first - 1] >>> 32) == e){
+                first--;
+            }
+            double sum = 0;
+            for(int j = first; j <= i; j++){
+                sum += coefficients[(int)keys[j]];
+            }
+            if(sum != 0){
+                exp[count] = e;
+                coeff[count] = sum;
+                count++;
+            }
+            i = first - 1;
+        }
+        return Polynomial.fromSparse(exp, coeff, count);
+    }
+}
@@ -0,0 +1,47 @@
+import junit.framework.TestCase;
+
+public class PolynomialBuilderTest extends TestCase{
+    
+    public void testOrdered(){
+        PolynomialBuilder builder = new PolynomialBuilder();
+        builder.add(3, 5).add(0, 4).add(5, 3).add(1, 1);
+        assertTrue(builder.size() == 4);
+        Polynomial poly = builder.build();
+        assertTrue(poly.terms() == 3);
+        assertTrue(poly.equals(new Polynomial("3 5 5 3 1 1")));
+    }
+    
+    public void testUnordered(){
+        PolynomialBuilder builder = new PolynomialBuilder(0);
+        builder.add(1, 0).add(2, 7).add(4, 3).add(-2, 7).add(1.5, 3).add(9, 100000);
+        Polynomial poly = builder.build();
+        assertTrue(poly.terms() == 3);
+        assertTrue(poly.getCoefficient(7) == 0);
+        assertTrue(poly.getCoefficient(3) == 5.5);
+        assertTrue(poly.getCoefficient(100000) == 9);
+        assertFalse(poly.isDense());
+        builder.clear();
+        assertTrue(builder.size() == 0);
+        assertTrue(builder.build().terms() == 0);
+    }
+    
+    public void testLarge(){
+        // Big enough that inserting term by term used to overflow the stack.
+        PolynomialBuilder builder = new PolynomialBuilder();
+        for(int i = 0; i < 100000; i++){
+            builder.add(1, (i * 7919) % 100000);
+        }
+        Polynomial poly = builder.build();
+        assertTrue(poly.terms() == 100000);
+        assertTrue(poly.isDense());
+        assertTrue(poly.evaluate(1) == 100000);
+    }
+    
+    public void testNegativeExponent(){
+        try{
+            new PolynomialBuilder().add(1, -1);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+}
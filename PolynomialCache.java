@@ -0,0 +1,242 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded memo cache for products, derivatives and evaluations. Operands
+ * are interned as ImmutablePolynomials, so a repeated call with equal operands
+ * finds the earlier result even if the operands are different objects. When
+ * the cache is full the least recently used result is evicted.
+ *
+ * Interning hashes every term and takes a global lock, so callers which look
+ * up the same operands repeatedly should intern them once with
+ * ImmutablePolynomial.of and pass those. Each method has an overload taking
+ * ImmutablePolynomials, for which a hit costs O(1) whatever their size.
+ *
+ * All methods are thread safe. Counters report how many lookups were answered
+ * from the cache (hits), how many had to be computed (misses) and how many
+ * results have been evicted.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class PolynomialCache{
+
+    private static final int PRODUCT = 0;
+    private static final int DERIVATIVE = 1;
+    private static final int EVALUATE = 2;
+
+    private final int maxEntries;
+    private final Map<Key, Object> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxEntries the most results the cache will hold.
+     * @throws IllegalArgumentException if maxEntries is less than 1.
+     */
+    public PolynomialCache(int maxEntries){
+        if(maxEntries < 1) throw new IllegalArgumentException();
+        this.maxEntries = maxEntries;
+        // Access order turns the map into an LRU list.
+        entries = new LinkedHashMap<Key, Object>(16, 0.75f, true){
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest){
+                if(size() > PolynomialCache.this.maxEntries){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the product of two polynomials, computing it only if an equal
+     * product is not already cached.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the product, as an immutable polynomial.
+     * @throws NullPointerException if either polynomial is null.
+     */
+    public ImmutablePolynomial product(Polynomial a, Polynomial b){
+        return product(ImmutablePolynomial.of(a), ImmutablePolynomial.of(b));
+    }
+
+    /**
+     * Returns the product of two interned polynomials, computing it only if
+     * it is not already cached. A hit takes constant time.
+     *
+     * @param a the first polynomial.
+     * @param b the second polynomial.
+     * @return the product, as an immutable polynomial.
+     * @throws NullPointerException if either polynomial is null.
+     */
+    public ImmutablePolynomial product(ImmutablePolynomial a, ImmutablePolynomial b){
+        if(a == null || b == null) throw new NullPointerException();
+        Key key = new Key(PRODUCT, a, b, 0);
+        Object result = lookup(key);
+        if(result == null){
+            result = store(key, ImmutablePolynomial.of(Polynomial.product(a, b)));
+        }
+        return (ImmutablePolynomial)result;
+    }
+
+    /**
+     * Returns the derivative of a polynomial, computing it only if it is not
+     * already cached.
+     *
+     * @param p the polynomial.
+     * @return the derivative, as an immutable polynomial.
+     * @throws NullPointerException if p is null.
+     */
+    public ImmutablePolynomial derivative(Polynomial p){
+        return derivative(ImmutablePolynomial.of(p));
+    }
+
+    /**
+     * Returns the derivative of an interned polynomial, computing it only if
+     * it is not already cached. A hit takes constant time.
+     *
+     * @param p the polynomial.
+     * @return the derivative, as an immutable polynomial.
+     * @throws NullPointerException if p is null.
+     */
+    public ImmutablePolynomial derivative(ImmutablePolynomial p){
+        if(p == null) throw new NullPointerException();
+        Key key = new Key(DERIVATIVE, p, null, 0);
+        Object result = lookup(key);
+        if(result == null){
+            result = store(key, ImmutablePolynomial.of(p.derivative()));
+        }
+        return (ImmutablePolynomial)result;
+    }
+
+    /**
+     * Returns the value of a polynomial at x, computing it only if it is not
+     * already cached.
+     *
+     * @param p the polynomial.
+     * @param x the x value.
+     * @return p(x).
+     * @throws NullPointerException if p is null.
+     */
+    public double evaluate(Polynomial p, double x){
+        return evaluate(ImmutablePolynomial.of(p), x);
+    }
+
+    /**
+     * Returns the value of an interned polynomial at x, computing it only if
+     * it is not already cached. A hit takes constant time.
+     *
+     * @param p the polynomial.
+     * @param x the x value.
+     * @return p(x).
+     * @throws NullPointerException if p is null.
+     */
+    public double evaluate(ImmutablePolynomial p, double x){
+        if(p == null) throw new NullPointerException();
+        Key key = new Key(EVALUATE, p, null, x);
+        Object result = lookup(key);
+        if(result == null){
+            result = store(key, p.evaluate(x));
+        }
+        return (Double)result;
+    }
+
+    private synchronized Object lookup(Key key){
+        Object result = entries.get(key);
+        if(result == null){
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    private synchronized Object store(Key key, Object result){
+        // Results are computed outside the lock, so another thread may have
+        // stored the same one meanwhile. Either is correct.
+        entries.put(key, result);
+        return result;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count.
+     */
+    public synchronized long hits(){
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which had to be computed.
+     *
+     * @return the miss count.
+     */
+    public synchronized long misses(){
+        return misses;
+    }
+
+    /**
+     * Returns the number of results evicted to stay within the size bound.
+     *
+     * @return the eviction count.
+     */
+    public synchronized long evictions(){
+        return evictions;
+    }
+
+    /**
+     * Returns the number of results currently cached.
+     *
+     * @return the number of cached results.
+     */
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * Removes every cached result. The counters are not reset.
+     */
+    public synchronized void clear(){
+        entries.clear();
+    }
+
+    /**
+     * Identifies a cached result by operation and operands. Operands are
+     * interned, so they are compared by identity.
+     */
+    private static class Key{
+        final int operation;
+        final ImmutablePolynomial a;
+        final ImmutablePolynomial b;
+        final long x;
+
+        Key(int operation, ImmutablePolynomial a, ImmutablePolynomial b, double x){
+            this.operation = operation;
+            this.a = a;
+            this.b = b;
+            this.x = Double.doubleToLongBits(x);
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Key)){
+                return false;
+            }
+            Key k = (Key)o;
+            return operation == k.operation && a == k.a && b == k.b && x == k.x;
+        }
+
+        public int hashCode(){
+            int hash = 31 * operation + a.hashCode();
+            hash = 31 * hash + (b == null ? 0 : b.hashCode());
+            return 31 * hash + Long.hashCode(x);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import junit.framework.TestCase;
+
+public class PolynomialCacheTest extends TestCase{
+    private static final String string = "3 5 4 4 5 3 6 2 1 1 9 0";
+    
+    public void testCounters(){
+        PolynomialCache cache = new PolynomialCache(2);
+        Polynomial a = new Polynomial(string);
+        Polynomial b = new Polynomial("1 1 1 0");
+        ImmutablePolynomial product = cache.product(a, b);
+        assertTrue(product.equals(Polynomial.product(a, b)));
+        assertSame(product, cache.product(new Polynomial(string), new Polynomial("1 1 1 0")));
+        assertTrue(cache.hits() == 1);
+        assertTrue(cache.misses() == 1);
+        
+        assertTrue(cache.derivative(a).equals(new Polynomial("15 4 16 3 15 2 12 1 1 0")));
+        assertTrue(cache.evaluate(a, 2) == 235);
+        assertTrue(cache.size() == 2);
+        assertTrue(cache.evictions() == 1);
+        assertTrue(cache.evaluate(a, 2) == 235);
+        assertTrue(cache.hits() == 2);
+        assertTrue(cache.misses() == 3);
+        cache.clear();
+        assertTrue(cache.size() == 0);
+    }
+    
+    public void testInterned(){
+        // Interned operands are looked up by identity, without interning
+        // them again.
+        PolynomialCache cache = new PolynomialCache(4);
+        PolynomialBuilder builder = new PolynomialBuilder();
+        for(int i = 0; i < 1000000; i++){
+            builder.add(1, 2 * i);
+        }
+        ImmutablePolynomial big = ImmutablePolynomial.of(builder.build());
+        ImmutablePolynomial small = ImmutablePolynomial.of(string);
+        double value = cache.evaluate(big, 0.5);
+        ImmutablePolynomial derivative = cache.derivative(big);
+        ImmutablePolynomial product = cache.product(small, small);
+        for(int i = 0; i < 100000; i++){
+            assertTrue(cache.evaluate(big, 0.5) == value);
+            assertSame(derivative, cache.derivative(big));
+        }
+        assertTrue(cache.hits() == 200000);
+        // Equal mutable operands find the same entries.
+        assertSame(product, cache.product(new Polynomial(string), small));
+        assertTrue(cache.misses() == 3);
+        try{
+            cache.derivative((ImmutablePolynomial)null);
+            fail("Expected NullPointerException not thrown.");
+        } catch (NullPointerException e){
+        }
+    }
+    
+    public void testBound(){
+        try{
+            new PolynomialCache(0);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+}
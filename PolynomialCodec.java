@@ -0,0 +1,200 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts polynomials to and from a compact binary form. A record holds the
+ * term count as a varint followed by the terms in descending order of
+ * exponent. Each term is the gap down from the previous exponent as a varint
+ * (the first term gives its exponent outright) and the coefficient as a raw
+ * 8 byte IEEE double, so a record is read with no parsing of text at all.
+ *
+ * toBytes and fromBytes wrap a record in a short header: the magic bytes
+ * "POLY" and a version byte. Records inside a PolynomialStore have no header
+ * of their own.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public final class PolynomialCodec{
+
+    /** The current version of the binary format. */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x504f4c59; // "POLY"
+
+    private PolynomialCodec(){
+    }
+
+    /**
+     * Encodes a polynomial, with header.
+     *
+     * @param p the polynomial to encode.
+     * @return the binary form of p.
+     * @throws NullPointerException if p is null.
+     */
+    public static byte[] toBytes(Polynomial p){
+        ByteBuffer buffer = ByteBuffer.allocate(5 + recordSize(p));
+        buffer.putInt(MAGIC);
+        buffer.put((byte)VERSION);
+        writeRecord(p, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a polynomial written by toBytes.
+     *
+     * @param bytes the binary form.
+     * @return the decoded polynomial.
+     * @throws IllegalArgumentException if the bytes are not a valid record of
+     * a known version.
+     */
+    public static Polynomial fromBytes(byte[] bytes){
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try{
+            if(buffer.getInt() != MAGIC){
+                throw new IllegalArgumentException("Not a polynomial.");
+            }
+            int version = buffer.get();
+            if(version != VERSION){
+                throw new IllegalArgumentException("Unknown version " + version);
+            }
+            return readRecord(buffer);
+        } catch (BufferUnderflowException e){
+            throw new IllegalArgumentException("Truncated polynomial.");
+        }
+    }
+
+    /**
+     * Returns the number of bytes writeRecord will use for p.
+     */
+    static int recordSize(Polynomial p){
+        int[] exp = new int[p.terms()];
+        p.copyTerms(exp, new double[p.terms()]);
+        int size = varintSize(exp.length) + 8 * exp.length;
+        int previous = exp.length == 0 ? 0 : exp[0];
+        for(int i = 0; i < exp.length; i++){
+            size += varintSize(i == 0 ? exp[0] : previous - exp[i]);
+            previous = exp[i];
+        }
+        return size;
+    }
+
+    /**
+     * Writes p as a record at the position of the buffer.
+     */
+    static void writeRecord(Polynomial p, ByteBuffer buffer){
+        int[] exp = new int[p.terms()];
+        double[] coeff = new double[p.terms()];
+        p.copyTerms(exp, coeff);
+        putVarint(buffer, exp.length);
+        for(int i = 0; i < exp.length; i++){
+            putVarint(buffer, i == 0 ? exp[0] : exp[i - 1] - exp[i]);
+            buffer.putDouble(coeff[i]);
+        }
+    }
+
+    /**
+     * Reads a record from the position of the buffer.
+     *
+     * @throws IllegalArgumentException if the record is malformed.
+     */
+    static Polynomial readRecord(ByteBuffer buffer){
+        int count = getVarint(buffer);
+        // Every term takes at least 9 bytes, which catches a garbage count
+        // before it turns into a huge allocation.
+        if(count > buffer.remaining() / 9){
+            throw new IllegalArgumentException("Truncated polynomial.");
+        }
+        int[] exp = new int[count];
+        double[] coeff = new double[count];
+        int e = 0;
+        for(int i = 0; i < count; i++){
+            int delta = getVarint(buffer);
+            if(i > 0 && (delta <= 0 || delta > e)){
+                throw new IllegalArgumentException("Exponents out of order.");
+            }
+            e = i == 0 ? delta : e - delta;
+            exp[i] = e;
+            coeff[i] = getDouble(buffer);
+            if(coeff[i] == 0){
+                throw new IllegalArgumentException("Zero coefficient.");
+            }
+        }
+        return Polynomial.fromSparse(exp, coeff, count);
+    }
+
+    /**
+     * Evaluates the record at the position of the buffer with Horner's scheme,
+     * without creating a Polynomial. The position is left unchanged.
+     *
+     * @throws IllegalArgumentException if the record is malformed.
+     */
+    static double evaluateRecord(ByteBuffer buffer, double x){
+        int position = buffer.position();
+        int count = getVarint(buffer);
+        double result = 0.0;
+        int previous = 0;
+        for(int i = 0; i < count; i++){
+            int delta = getVarint(buffer);
+            if(i > 0){
+                result *= Polynomial.power(x, delta);
+            }
+            previous = i == 0 ? delta : previous - delta;
+            result += getDouble(buffer);
+        }
+        buffer.position(position);
+        return count == 0 ? 0.0 : result * Polynomial.power(x, previous);
+    }
+
+    private static int varintSize(int value){
+        int size = 1;
+        while((value >>>= 7) != 0){
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value){
+        // Seven bits per byte, low bits first, high bit set on all but the last.
+        while((value & ~0x7f) != 0){
+            buffer.put((byte)((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    /**
+     * Reads a varint from the position of the buffer.
+     *
+     * @throws IllegalArgumentException if the varint is malformed.
+     */
+    static int getVarint(ByteBuffer buffer){
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7){
+            if(!buffer.hasRemaining()){
+                throw new IllegalArgumentException("Truncated polynomial.");
+            }
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if(b >= 0){
+                if(value < 0){
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    /**
+     * Reads a coefficient from the position of the buffer.
+     *
+     * @throws IllegalArgumentException if fewer than 8 bytes remain.
+     */
+    private static double getDouble(ByteBuffer buffer){
+        if(buffer.remaining() < 8){
+            throw new IllegalArgumentException("Truncated polynomial.");
+        }
+        return buffer.getDouble();
+    }
+}
@@ -0,0 +1,134 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Builds the specialized evaluators returned by Polynomial.compile. A
+ * polynomial of up to UNROLL_LIMIT steps becomes a chain of method handles,
+ * one per Horner step, with its coefficient and exponent gap bound in as
+ * constants. Once the evaluator is hot the JIT inlines the whole chain into
+ * straight-line code with no loop, array loads or layout checks. Larger
+ * polynomials get a plain loop over private copies of their arrays, since an
+ * unrolled chain that long would be too big to inline.
+ *
+ * Both perform the same arithmetic in the same order as Polynomial.evaluate,
+ * so results are identical.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class PolynomialCompiler{
+
+    static final int UNROLL_LIMIT = 64;
+
+    private static final MethodHandle STEP;
+    private static final MethodHandle GAP_STEP;
+    private static final MethodHandle SHIFT;
+
+    static{
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try{
+            STEP = lookup.findStatic(PolynomialCompiler.class, "step", MethodType.methodType(
+                double.class, double.class, double.class, double.class));
+            GAP_STEP = lookup.findStatic(PolynomialCompiler.class, "gapStep", MethodType.methodType(
+                double.class, double.class, double.class, double.class, int.class));
+            SHIFT = lookup.findStatic(PolynomialCompiler.class, "shift", MethodType.methodType(
+                double.class, double.class, double.class, int.class));
+        } catch (ReflectiveOperationException e){
+            throw new AssertionError(e);
+        }
+    }
+
+    private PolynomialCompiler(){
+    }
+
+    private static double step(double acc, double x, double coef){
+        return acc * x + coef;
+    }
+
+    private static double gapStep(double acc, double x, double coef, int gap){
+        return acc * Polynomial.power(x, gap) + coef;
+    }
+
+    private static double shift(double acc, double x, int exp){
+        return acc * Polynomial.power(x, exp);
+    }
+
+    /**
+     * Compiles dense coefficients, where dense[e] is the coefficient of x^e
+     * and the last entry is non-zero.
+     */
+    static DoubleUnaryOperator compileDense(double[] dense){
+        if(dense.length == 0){
+            return x -> 0.0;
+        }
+        if(dense.length > UNROLL_LIMIT){
+            return x -> {
+                double result = 0.0;
+                for(int e = dense.length - 1; e >= 0; e--){
+                    result = result * x + dense[e];
+                }
+                return result;
+            };
+        }
+        // Starts from 0 * x + c, as evaluate does, so even NaN and infinite
+        // x give the same result.
+        MethodHandle horner = MethodHandles.dropArguments(
+            MethodHandles.constant(double.class, 0.0), 0, double.class);
+        for(int e = dense.length - 1; e >= 0; e--){
+            horner = MethodHandles.foldArguments(MethodHandles.insertArguments(STEP, 2, dense[e]), horner);
+        }
+        return wrap(horner);
+    }
+
+    /**
+     * Compiles sparse terms, exponents distinct and in descending order and
+     * coefficients non-zero.
+     */
+    static DoubleUnaryOperator compileSparse(int[] exp, double[] coeff){
+        int n = exp.length;
+        if(n == 0){
+            return x -> 0.0;
+        }
+        if(n > UNROLL_LIMIT){
+            return x -> {
+                double result = 0.0;
+                for(int i = 0; i < n - 1; i++){
+                    result = (result + coeff[i]) * Polynomial.power(x, exp[i] - exp[i + 1]);
+                }
+                result += coeff[n - 1];
+                return result * Polynomial.power(x, exp[n - 1]);
+            };
+        }
+        // The steps of evaluate, (r + c) * x^gap, regrouped as r * x^gap + c.
+        // The same operations happen in the same order, so nothing changes.
+        MethodHandle horner = MethodHandles.dropArguments(
+            MethodHandles.constant(double.class, coeff[0]), 0, double.class);
+        for(int i = 1; i < n; i++){
+            MethodHandle step = MethodHandles.insertArguments(GAP_STEP, 2, coeff[i], exp[i - 1] - exp[i]);
+            horner = MethodHandles.foldArguments(step, horner);
+        }
+        if(exp[n - 1] > 0){
+            horner = MethodHandles.foldArguments(MethodHandles.insertArguments(SHIFT, 2, exp[n - 1]), horner);
+        }
+        return wrap(horner);
+    }
+
+    private static DoubleUnaryOperator wrap(MethodHandle horner){
+        // The handle is a final field of the lambda's hidden class, which the
+        // JIT trusts, so when the evaluator is a constant the whole chain is
+        // inlined.
+        MethodHandle exact = horner.asType(MethodType.methodType(double.class, double.class));
+        return x -> {
+            try{
+                return (double)exact.invokeExact(x);
+            } catch (RuntimeException | Error e){
+                throw e;
+            } catch (Throwable t){
+                // The steps throw nothing checked.
+                throw new AssertionError(t);
+            }
+        };
+    }
+}
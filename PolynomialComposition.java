@@ -0,0 +1,93 @@
+/**
+ * Composition and Taylor shift on dense coefficient arrays, where index i
+ * holds the coefficient of x^i. Behind Polynomial.compose and
+ * Polynomial.shift.
+ *
+ * p(q) is found by splitting p in two, p = low + x^k high with k a power of
+ * two, so that p(q) = low(q) + q^k high(q). The powers q^k are found once by
+ * repeated squaring, and each level of the recursion is a few products by
+ * PolynomialMultiplier of total size about deg p deg q. That costs
+ * O(M(nm) log n) for degrees n and m, where Horner's scheme with polynomial
+ * products costs O(n M(nm)). Pieces of up to LEAF coefficients are done by
+ * Horner's scheme, and pieces which are all zero cost nothing, so sparse p
+ * are cheap too.
+ *
+ * The Taylor shift p(x + c) is done in place by repeated synthetic division,
+ * in O(n^2) multiply-adds. The O(n log n) shift convolves with factorials,
+ * which overflow beyond degree 170 and lose accuracy well before that.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class PolynomialComposition{
+
+    private static final int LEAF = 8;
+
+    private PolynomialComposition(){
+    }
+
+    /**
+     * Returns p(q), p and q trimmed so their last entry is non-zero and q of
+     * degree at least one. The result may end in zeros.
+     */
+    static double[] compose(double[] p, double[] q, PolynomialMultiplier multiplier){
+        // powers[i] is q^(2^i), up to the largest split point used.
+        int levels = 0;
+        if(p.length > LEAF){
+            levels = Integer.numberOfTrailingZeros(Integer.highestOneBit(p.length - 1)) + 1;
+        }
+        double[][] powers = new double[levels][];
+        for(int i = 0; i < levels; i++){
+            powers[i] = i == 0 ? q : multiplier.multiply(powers[i - 1], powers[i - 1]);
+        }
+        return compose(p, 0, p.length, q, powers, multiplier);
+    }
+
+    private static double[] compose(double[] p, int from, int n, double[] q,
+                                    double[][] powers, PolynomialMultiplier multiplier){
+        // p[from] + p[from + 1] q + ... + p[from + n - 1] q^(n - 1).
+        int top = from + n - 1;
+        while(top >= from && p[top] == 0){
+            top--;
+        }
+        n = top - from + 1;
+        if(n == 0){
+            return new double[0];
+        }
+        if(n <= LEAF){
+            double[] result = {p[top]};
+            for(int i = top - 1; i >= from; i--){
+                result = multiplier.multiply(result, q);
+                result[0] += p[i];
+            }
+            return result;
+        }
+        int k = Integer.highestOneBit(n - 1);
+        double[] low = compose(p, from, k, q, powers, multiplier);
+        double[] high = compose(p, from + k, n - k, q, powers, multiplier);
+        double[] result = multiplier.multiply(high, powers[Integer.numberOfTrailingZeros(k)]);
+        // low(q) has lower degree than q^k high(q) unless high(q) is zero.
+        if(result.length < low.length){
+            return low;
+        }
+        for(int i = 0; i < low.length; i++){
+            result[i] += low[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns p(x + c) for any p, in a new array of the same length.
+     */
+    static double[] shift(double[] p, double c){
+        double[] a = p.clone();
+        // Pass i divides by x - c, leaving the remainder, which is the
+        // coefficient of (x - c)^i in the expansion about c, in a[i].
+        for(int i = 0; i < a.length - 1; i++){
+            for(int j = a.length - 2; j >= i; j--){
+                a[j] += c * a[j + 1];
+            }
+        }
+        return a;
+    }
+}
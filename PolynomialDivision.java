@@ -0,0 +1,175 @@
+import java.util.Arrays;
+
+/**
+ * Division with remainder on dense coefficient arrays, where index i holds the
+ * coefficient of x^i. Behind Polynomial.divideAndRemainder and Polynomial.gcd.
+ *
+ * Small divisions use schoolbook long division. Large ones compute the
+ * quotient from the reversed operands with a power series inverse found by
+ * Newton iteration, so the cost is a few multiplications by
+ * PolynomialMultiplier. In floating point the Newton quotient can lose
+ * accuracy when the inverse series grows quickly, so every fast result is
+ * checked: the remainder it implies must vanish above the divisor's degree to
+ * within STABILITY_TOLERANCE, and if it does not the division is redone by the
+ * schoolbook method.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class PolynomialDivision{
+
+    // Newton division is used once schoolbook would take this many
+    // multiply-adds and the quotient has at least NEWTON_MIN_QUOTIENT terms.
+    private static final long NEWTON_THRESHOLD = 1L << 18;
+    private static final int NEWTON_MIN_QUOTIENT = 64;
+    private static final double STABILITY_TOLERANCE = 1e-9;
+    // A remainder in the gcd is taken as zero once no coefficient is larger
+    // than this fraction of the largest coefficient of the dividend.
+    static final double GCD_TOLERANCE = 1e-9;
+
+    private PolynomialDivision(){
+    }
+
+    /**
+     * Divides a by b, both trimmed so their last entry is non-zero. Returns
+     * the quotient and the remainder, the remainder of length b.length - 1.
+     */
+    static double[][] divide(double[] a, double[] b){
+        int n = a.length - 1;
+        int m = b.length - 1;
+        if(n < m){
+            return new double[][] {new double[0], a.clone()};
+        }
+        if((long)(n - m + 1) * m >= NEWTON_THRESHOLD && n - m + 1 >= NEWTON_MIN_QUOTIENT){
+            double[][] result = newton(a, b);
+            if(result != null){
+                return result;
+            }
+        }
+        return schoolbook(a, b);
+    }
+
+    private static double[][] schoolbook(double[] a, double[] b){
+        int n = a.length - 1;
+        int m = b.length - 1;
+        double[] r = a.clone();
+        double[] q = new double[n - m + 1];
+        double lead = b[m];
+        for(int i = n; i >= m; i--){
+            double c = r[i] / lead;
+            q[i - m] = c;
+            if(c != 0){
+                for(int j = 0; j < m; j++){
+                    r[i - m + j] -= c * b[j];
+                }
+            }
+            // Cancelled exactly by definition, whatever the rounding.
+            r[i] = 0;
+        }
+        return new double[][] {q, Arrays.copyOf(r, m)};
+    }
+
+    private static double[][] newton(double[] a, double[] b){
+        // With rev(p) = x^deg(p) p(1/x), rev(q) = rev(a) / rev(b) mod x^(d+1)
+        // where d = n - m is the degree of the quotient.
+        int n = a.length - 1;
+        int m = b.length - 1;
+        int d = n - m;
+        PolynomialMultiplier multiplier = PolynomialMultiplier.getDefault();
+        double[] revA = new double[d + 1];
+        for(int i = 0; i <= d; i++){
+            revA[i] = a[n - i];
+        }
+        double[] revB = new double[Math.min(d, m) + 1];
+        for(int i = 0; i < revB.length; i++){
+            revB[i] = b[m - i];
+        }
+        double[] inverse = inverse(revB, d + 1);
+        double[] revQ = multiplier.multiply(revA, d + 1, inverse, d + 1);
+        double[] q = new double[d + 1];
+        for(int i = 0; i <= d; i++){
+            q[i] = revQ[d - i];
+        }
+
+        // The remainder a - bq must vanish from x^m up. If rounding has
+        // spoiled the quotient it will not, and the caller falls back. The
+        // test is relative to a alone, as q may be wildly wrong.
+        double[] bq = multiplier.multiply(b, b.length, q, q.length);
+        double tolerance = STABILITY_TOLERANCE * maxAbs(a, a.length);
+        for(int i = m; i <= n; i++){
+            if(Math.abs(a[i] - bq[i]) > tolerance){
+                return null;
+            }
+        }
+        double[] r = new double[m];
+        for(int i = 0; i < m; i++){
+            r[i] = a[i] - bq[i];
+        }
+        return new double[][] {q, r};
+    }
+
+    /**
+     * Returns g with f * g = 1 mod x^n, found by Newton iteration. Each step
+     * doubles the number of correct terms: g' = g + g(1 - fg) mod x^2k. f[0]
+     * must be non-zero, and f may be shorter than n.
+     */
+    static double[] inverse(double[] f, int n){
+        PolynomialMultiplier multiplier = PolynomialMultiplier.getDefault();
+        double[] g = new double[n];
+        g[0] = 1 / f[0];
+        for(int k = 1; k < n; ){
+            int k2 = Math.min(2 * k, n);
+            // fg = 1 mod x^k, so only its terms from x^k to x^(k2 - 1) matter.
+            double[] fg = multiplier.multiply(f, Math.min(f.length, k2), g, k);
+            double[] error = new double[k2 - k];
+            for(int i = k; i < k2 && i < fg.length; i++){
+                error[i - k] = -fg[i];
+            }
+            double[] step = multiplier.multiply(g, Math.min(k, k2 - k), error, error.length);
+            for(int i = k; i < k2; i++){
+                g[i] = step[i - k];
+            }
+            k = k2;
+        }
+        return g;
+    }
+
+    /**
+     * Returns the monic greatest common divisor of a and b by Euclid's
+     * algorithm, empty if both are empty. Both must be trimmed.
+     */
+    static double[] gcd(double[] a, double[] b){
+        while(b.length > 0){
+            double[] r = divide(a, b)[1];
+            // Rounding leaves small coefficients where exact arithmetic would
+            // give zero, so those are cleared before the next step.
+            double tolerance = GCD_TOLERANCE * maxAbs(a, a.length);
+            int length = 0;
+            for(int i = 0; i < r.length; i++){
+                if(Math.abs(r[i]) <= tolerance){
+                    r[i] = 0;
+                } else {
+                    length = i + 1;
+                }
+            }
+            a = b;
+            b = Arrays.copyOf(r, length);
+        }
+        if(a.length > 0){
+            double lead = a[a.length - 1];
+            for(int i = 0; i < a.length; i++){
+                a[i] /= lead;
+            }
+            a[a.length - 1] = 1;
+        }
+        return a;
+    }
+
+    static double maxAbs(double[] a, int length){
+        double max = 0;
+        for(int i = 0; i < length; i++){
+            max = Math.max(max, Math.abs(a[i]));
+        }
+        return max;
+    }
+}
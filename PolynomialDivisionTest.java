@@ -0,0 +1,68 @@
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class PolynomialDivisionTest extends TestCase{
+    
+    public void testSmall(){
+        Polynomial a = new Polynomial("1 3 -2 2 0 1 -4 0");
+        Polynomial b = new Polynomial("1 1 -3 0");
+        Polynomial[] result = Polynomial.divideAndRemainder(a, b);
+        assertTrue(result[0].equals(new Polynomial("1 2 1 1 3 0")));
+        assertTrue(result[1].equals(new Polynomial("5 0")));
+        assertTrue(Polynomial.divide(a, b).equals(result[0]));
+        assertTrue(Polynomial.remainder(a, b).equals(result[1]));
+        result = Polynomial.divideAndRemainder(b, a);
+        assertTrue(result[0].terms() == 0);
+        assertTrue(result[1].equals(b));
+        try{
+            Polynomial.divide(a, new Polynomial(""));
+            fail("Expected ArithmeticException not thrown.");
+        } catch (ArithmeticException e){
+        }
+    }
+    
+    public void testLarge(){
+        // Large enough for the Newton path: a = bq + r exactly. A dominant
+        // leading coefficient keeps the inverse series small.
+        Random random = new Random(143);
+        Polynomial b = PolynomialFixtures.randomOfDegree(random, 1500);
+        b.addTerm(20, 1500);
+        Polynomial q = PolynomialFixtures.randomOfDegree(random, 2000);
+        Polynomial r = PolynomialFixtures.randomOfDegree(random, 1200);
+        Polynomial a = Polynomial.sum(Polynomial.product(b, q), r);
+        Polynomial[] result = Polynomial.divideAndRemainder(a, b);
+        PolynomialFixtures.assertClose(q, result[0], 1e-6);
+        PolynomialFixtures.assertClose(r, result[1], 1e-6);
+        
+        // A sparse divisor: check a = bq + r and the degree of r.
+        b = new Polynomial("1 700 1 3 -1 0");
+        a = PolynomialFixtures.randomOfDegree(random, 3000);
+        result = Polynomial.divideAndRemainder(a, b);
+        assertTrue(result[1].toDenseArray().length <= 700);
+        PolynomialFixtures.assertClose(a, Polynomial.sum(Polynomial.product(b, result[0]), result[1]),
+                                       1e-9);
+    }
+    
+    public void testNewtonInverse(){
+        double[] f = {4, 1, -0.5};
+        double[] g = PolynomialDivision.inverse(f, 300);
+        double[] fg = new PolynomialMultiplier().multiply(f, g);
+        assertEquals(1, fg[0], 1e-12);
+        for(int i = 1; i < 300; i++){
+            assertEquals(0, fg[i], 1e-9);
+        }
+    }
+    
+    public void testGcd(){
+        Polynomial common = new Polynomial("1 2 -3 1 2 0"); // (x - 1)(x - 2)
+        Polynomial a = Polynomial.product(common, new Polynomial("2 1 5 0"));
+        Polynomial b = Polynomial.product(common, new Polynomial("3 2 -1 0"));
+        Polynomial gcd = Polynomial.gcd(a, b);
+        PolynomialFixtures.assertClose(common, gcd, 1e-9);
+        assertTrue(gcd.getCoefficient(2) == 1);
+        assertTrue(Polynomial.gcd(new Polynomial("1 1 1 0"), new Polynomial("1 1 -1 0"))
+                   .equals(new Polynomial("1 0")));
+        assertTrue(Polynomial.gcd(new Polynomial(""), new Polynomial("")).terms() == 0);
+        assertTrue(Polynomial.gcd(a, new Polynomial("")).getCoefficient(3) == 1);
+    }
+}
@@ -0,0 +1,45 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for one Polynomial operation, committed by
+ * PolynomialMetrics. Disabled unless a recording turns it on, e.g. with
+ *
+ *   java -XX:StartFlightRecording:polynomial.Operation#enabled=true ...
+ *
+ * since the operations are frequent enough to flood a recording that takes
+ * every event.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+@Name("polynomial.Operation")
+@Label("Polynomial Operation")
+@Category("Polynomial")
+@Description("A Polynomial operation with its duration and result size")
+@Enabled(false)
+@StackTrace(false)
+class PolynomialEvent extends jdk.jfr.Event{
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Terms")
+    @Description("Terms in the result, or in the polynomial operated on")
+    int terms;
+
+    @Label("Storage")
+    @Description("Size of the arrays holding those terms")
+    @DataAmount
+    long storage;
+}
@@ -0,0 +1,82 @@
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Random operands and approximate comparisons shared by the test classes.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class PolynomialFixtures{
+
+    private PolynomialFixtures(){
+    }
+
+    /**
+     * Returns values drawn uniformly from [-bound, bound).
+     */
+    static double[] uniform(Random random, int n, double bound){
+        double[] values = new double[n];
+        for(int i = 0; i < n; i++){
+            values[i] = (random.nextDouble() * 2 - 1) * bound;
+        }
+        return values;
+    }
+
+    /**
+     * Returns a polynomial with the given number of terms, the exponents being
+     * the multiples of spread and the coefficients drawn from [-1, 1).
+     */
+    static Polynomial random(Random random, int terms, int spread){
+        PolynomialBuilder builder = new PolynomialBuilder(terms);
+        for(int i = 0; i < terms; i++){
+            builder.add(random.nextDouble() * 2 - 1, i * spread);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a dense polynomial of the given degree, its coefficients drawn
+     * from [-1, 1) but the leading one from [0, 2), so it is rarely small.
+     */
+    static Polynomial randomOfDegree(Random random, int degree){
+        Polynomial p = random(random, degree + 1, 1);
+        p.addTerm(1, degree);
+        return p;
+    }
+
+    /**
+     * Returns a polynomial modulo m of the given degree, with every
+     * coefficient non-zero.
+     */
+    static ModPolynomial randomMod(Random random, int degree, long modulus){
+        ModPolynomial p = new ModPolynomial(modulus);
+        for(int i = 0; i <= degree; i++){
+            p.addTerm(1 + (long)(random.nextDouble() * (modulus - 1)), i);
+        }
+        return p;
+    }
+
+    /**
+     * Asserts that every coefficient of actual is within tolerance of that of
+     * expected.
+     */
+    static void assertClose(Polynomial expected, Polynomial actual, double tolerance){
+        Polynomial difference = new Polynomial(expected);
+        difference.subtractInPlace(actual);
+        for(int e = 0; e < difference.toDenseArray().length; e++){
+            TestCase.assertEquals("Coefficient " + e, 0, difference.getCoefficient(e), tolerance);
+        }
+    }
+
+    /**
+     * Asserts that the arrays have the same length and every entry of actual
+     * is within bound of that of expected.
+     */
+    static void assertClose(double[] expected, double[] actual, double bound){
+        TestCase.assertTrue(expected.length == actual.length);
+        for(int i = 0; i < expected.length; i++){
+            TestCase.assertEquals("Coefficient " + i, expected[i], actual[i], bound);
+        }
+    }
+}
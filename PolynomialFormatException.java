@@ -0,0 +1,34 @@
+/**
+ * Thrown when the text form of a polynomial is malformed. Records the position
+ * of the offending token, counted in characters from the start of the input
+ * (bytes for memory-mapped files).
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class PolynomialFormatException extends IllegalArgumentException{
+
+    private static final long serialVersionUID = 1L;
+
+    private final long position;
+
+    /**
+     * Constructs a new PolynomialFormatException.
+     *
+     * @param message the detail message.
+     * @param position the position of the malformed token.
+     */
+    public PolynomialFormatException(String message, long position){
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    /**
+     * Returns the position of the malformed token.
+     *
+     * @return the offset of the token from the start of the input.
+     */
+    public long getPosition(){
+        return position;
+    }
+}
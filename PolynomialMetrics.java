@@ -0,0 +1,198 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and histograms for Polynomial operations: how often each runs, how
+ * long it takes, and the number of terms and bytes of storage in its result.
+ * Collection is off until a registry is installed with install, or a Flight
+ * Recorder recording enables the polynomial.Operation event. While both are
+ * off each operation pays for one static field read and one flag check.
+ *
+ * Histograms have power-of-two buckets: bucket b counts values v with
+ * 2^(b - 1) <= v < 2^b, bucket 0 counting zeros. The registry is pluggable:
+ * subclasses can override record to pass measurements on to another
+ * monitoring system as well as, or instead of, counting them here.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class PolynomialMetrics{
+
+    /**
+     * The operations measured.
+     */
+    public enum Operation{
+        PARSE, ADD_TERM, DELETE_TERM, GET_COEFFICIENT, EVALUATE, SUM, PRODUCT,
+        DERIVATIVE, DIVIDE
+    }
+
+    /**
+     * The number of buckets in each histogram.
+     */
+    public static final int BUCKETS = 64;
+
+    // Returned by start when nothing is collecting.
+    static final long OFF = Long.MIN_VALUE;
+    // Only asked whether the event is enabled, never committed.
+    private static final PolynomialEvent PROBE = new PolynomialEvent();
+
+    private static volatile PolynomialMetrics installed;
+
+    private final int operations = Operation.values().length;
+    private final AtomicLongArray counts = new AtomicLongArray(operations);
+    private final AtomicLongArray nanos = new AtomicLongArray(operations);
+    private final AtomicLongArray bytes = new AtomicLongArray(operations);
+    private final AtomicLongArray latency = new AtomicLongArray(operations * BUCKETS);
+    private final AtomicLongArray terms = new AtomicLongArray(operations * BUCKETS);
+
+    /**
+     * Installs a registry to receive the measurements of every operation,
+     * replacing any installed before.
+     *
+     * @param metrics the registry, or null to stop collecting.
+     */
+    public static void install(PolynomialMetrics metrics){
+        installed = metrics;
+    }
+
+    /**
+     * Returns the installed registry.
+     *
+     * @return the registry, or null if none is installed.
+     */
+    public static PolynomialMetrics installed(){
+        return installed;
+    }
+
+    /**
+     * Returns the start time of an operation, or OFF if nothing is
+     * collecting. Small enough to be inlined into every operation.
+     */
+    static long start(){
+        if(installed == null && !PROBE.isEnabled()){
+            return OFF;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends an operation begun with start, p being its result or the
+     * polynomial it worked on.
+     */
+    static void finish(Operation op, long start, Polynomial p){
+        if(start != OFF){
+            report(op, System.nanoTime() - start, p.terms(), p.storageBytes());
+        }
+    }
+
+    private static void report(Operation op, long elapsed, int terms, long storage){
+        PolynomialMetrics metrics = installed;
+        if(metrics != null){
+            metrics.record(op, elapsed, terms, storage);
+        }
+        PolynomialEvent event = new PolynomialEvent();
+        if(event.isEnabled()){
+            event.operation = op.name();
+            event.elapsed = elapsed;
+            event.terms = terms;
+            event.storage = storage;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records one operation. Called from whichever thread ran it, so
+     * overriding methods must be thread safe.
+     *
+     * @param op the operation.
+     * @param elapsed how long it took, in nanoseconds.
+     * @param terms the number of terms in its result, or in the polynomial
+     * it worked on if it has no polynomial result.
+     * @param storage the size in bytes of the arrays holding those terms.
+     */
+    public void record(Operation op, long elapsed, int terms, long storage){
+        int i = op.ordinal();
+        counts.incrementAndGet(i);
+        nanos.addAndGet(i, elapsed);
+        bytes.addAndGet(i, storage);
+        latency.incrementAndGet(i * BUCKETS + bucket(elapsed));
+        this.terms.incrementAndGet(i * BUCKETS + bucket(terms));
+    }
+
+    private static int bucket(long value){
+        return value <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Returns the number of times an operation has been recorded.
+     *
+     * @param op the operation.
+     * @return the count.
+     */
+    public long count(Operation op){
+        return counts.get(op.ordinal());
+    }
+
+    /**
+     * Returns the total time recorded for an operation.
+     *
+     * @param op the operation.
+     * @return the total in nanoseconds.
+     */
+    public long totalNanos(Operation op){
+        return nanos.get(op.ordinal());
+    }
+
+    /**
+     * Returns the total storage of the results recorded for an operation.
+     *
+     * @param op the operation.
+     * @return the total in bytes.
+     */
+    public long totalStorage(Operation op){
+        return bytes.get(op.ordinal());
+    }
+
+    /**
+     * Returns the histogram of times recorded for an operation.
+     *
+     * @param op the operation.
+     * @return a copy of the BUCKETS counts, by nanoseconds.
+     */
+    public long[] latencyHistogram(Operation op){
+        return histogram(latency, op);
+    }
+
+    /**
+     * Returns the histogram of term counts recorded for an operation.
+     *
+     * @param op the operation.
+     * @return a copy of the BUCKETS counts, by terms.
+     */
+    public long[] termsHistogram(Operation op){
+        return histogram(terms, op);
+    }
+
+    private static long[] histogram(AtomicLongArray array, Operation op){
+        long[] copy = new long[BUCKETS];
+        for(int b = 0; b < BUCKETS; b++){
+            copy[b] = array.get(op.ordinal() * BUCKETS + b);
+        }
+        return copy;
+    }
+
+    /**
+     * Sets every counter and histogram back to zero. Operations recorded
+     * during the reset may be partly cleared.
+     */
+    public void reset(){
+        for(int i = 0; i < operations; i++){
+            counts.set(i, 0);
+            nanos.set(i, 0);
+            bytes.set(i, 0);
+        }
+        for(int i = 0; i < operations * BUCKETS; i++){
+            latency.set(i, 0);
+            terms.set(i, 0);
+        }
+    }
+}
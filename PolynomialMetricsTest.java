@@ -0,0 +1,70 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+public class PolynomialMetricsTest extends TestCase{
+    
+    public void testRegistry(){
+        PolynomialMetrics metrics = new PolynomialMetrics();
+        PolynomialMetrics.install(metrics);
+        try{
+            Polynomial a = new Polynomial("1 3 2 1");
+            Polynomial b = new Polynomial("1 1 1 0");
+            Polynomial c = Polynomial.product(a, b);
+            Polynomial.sum(a, c);
+            a.addTerm(1, 0);
+            a.evaluate(2);
+            a.getCoefficient(3);
+            a.deleteTerm(3);
+            c.derivative();
+            assertTrue(metrics.count(PolynomialMetrics.Operation.PARSE) == 2);
+            assertTrue(metrics.count(PolynomialMetrics.Operation.PRODUCT) == 1);
+            assertTrue(metrics.count(PolynomialMetrics.Operation.SUM) == 1);
+            assertTrue(metrics.count(PolynomialMetrics.Operation.ADD_TERM) == 1);
+            assertTrue(metrics.count(PolynomialMetrics.Operation.EVALUATE) == 1);
+            assertTrue(metrics.count(PolynomialMetrics.Operation.GET_COEFFICIENT) == 1);
+            assertTrue(metrics.count(PolynomialMetrics.Operation.DELETE_TERM) == 1);
+            assertTrue(metrics.count(PolynomialMetrics.Operation.DERIVATIVE) == 1);
+            // The product x^4 + x^3 + 2x^2 + 2x has 4 terms, bucket 3.
+            long[] terms = metrics.termsHistogram(PolynomialMetrics.Operation.PRODUCT);
+            assertTrue(terms[3] == 1);
+            long total = 0;
+            for(long n : metrics.latencyHistogram(PolynomialMetrics.Operation.PRODUCT)){
+                total += n;
+            }
+            assertTrue(total == 1);
+            assertTrue(metrics.totalStorage(PolynomialMetrics.Operation.PRODUCT) > 0);
+            metrics.reset();
+            assertTrue(metrics.count(PolynomialMetrics.Operation.PRODUCT) == 0);
+        } finally {
+            PolynomialMetrics.install(null);
+        }
+        new Polynomial("1 1").evaluate(1);
+        assertTrue(metrics.count(PolynomialMetrics.Operation.EVALUATE) == 0);
+        assertNull(PolynomialMetrics.installed());
+    }
+    
+    public void testFlightRecorder() throws Exception{
+        Path file = Files.createTempFile("polynomial", ".jfr");
+        try(Recording recording = new Recording()){
+            recording.enable("polynomial.Operation");
+            recording.start();
+            Polynomial.product(new Polynomial("1 2 1 0"), new Polynomial("1 1"));
+            recording.stop();
+            recording.dump(file);
+        }
+        int products = 0;
+        for(RecordedEvent event : RecordingFile.readAllEvents(file)){
+            if(event.getEventType().getName().equals("polynomial.Operation")
+               && event.getString("operation").equals("PRODUCT")){
+                products++;
+                assertTrue(event.getInt("terms") == 2);
+            }
+        }
+        Files.delete(file);
+        assertTrue(products == 1);
+    }
+}
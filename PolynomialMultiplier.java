@@ -0,0 +1,293 @@
+import java.util.Arrays;
+
+/**
+ * Multiplies dense coefficient arrays, where index i holds the coefficient of
+ * x^i. Small operands use the schoolbook method, mid-sized ones Karatsuba, and
+ * large ones an FFT based convolution. The sizes at which each method takes
+ * over can be configured.
+ *
+ * Schoolbook results are exact up to ordinary rounding. Karatsuba and FFT
+ * results agree with the schoolbook result to within
+ * {@link #errorBound(double[], int, double[], int)}, which is TOLERANCE times
+ * the product of the euclidean norms of the operands. Coefficients of an FFT
+ * result which fall inside that bound are set to zero, so that cancellation
+ * noise does not show up as spurious terms.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class PolynomialMultiplier{
+
+    /** Default operand length at which Karatsuba replaces schoolbook. */
+    public static final int DEFAULT_KARATSUBA_THRESHOLD = 32;
+    /** Default result length at which the FFT replaces Karatsuba. */
+    public static final int DEFAULT_FFT_THRESHOLD = 2048;
+    /** Relative tolerance of Karatsuba and FFT products, see errorBound. */
+    public static final double TOLERANCE = 1e-12;
+
+    private static final PolynomialMultiplier DEFAULT = new PolynomialMultiplier();
+
+    private final int karatsubaThreshold;
+    private final int fftThreshold;
+
+    /**
+     * Constructs a multiplier with the default thresholds.
+     */
+    public PolynomialMultiplier(){
+        this(DEFAULT_KARATSUBA_THRESHOLD, DEFAULT_FFT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a multiplier with the given thresholds.
+     *
+     * @param karatsubaThreshold the length of the shorter operand from which
+     * Karatsuba is used instead of schoolbook multiplication.
+     * @param fftThreshold the length of the result from which the FFT is used.
+     * @throws IllegalArgumentException if karatsubaThreshold is less than 2 or
+     * fftThreshold is less than 1.
+     */
+    public PolynomialMultiplier(int karatsubaThreshold, int fftThreshold){
+        if(karatsubaThreshold < 2 || fftThreshold < 1){
+            throw new IllegalArgumentException();
+        }
+        this.karatsubaThreshold = karatsubaThreshold;
+        this.fftThreshold = fftThreshold;
+    }
+
+    /**
+     * Returns the multiplier used by Polynomial.product.
+     *
+     * @return the shared default multiplier.
+     */
+    public static PolynomialMultiplier getDefault(){
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the Karatsuba threshold of this multiplier.
+     *
+     * @return the shorter operand length from which Karatsuba is used.
+     */
+    public int karatsubaThreshold(){
+        return karatsubaThreshold;
+    }
+
+    /**
+     * Returns the FFT threshold of this multiplier.
+     *
+     * @return the result length from which the FFT is used.
+     */
+    public int fftThreshold(){
+        return fftThreshold;
+    }
+
+    /**
+     * Multiplies two dense coefficient arrays.
+     *
+     * @param a the coefficients of the first polynomial.
+     * @param b the coefficients of the second polynomial.
+     * @return the coefficients of the product, of length a.length + b.length - 1,
+     * or an empty array if either operand is empty.
+     * @throws NullPointerException if either array is null.
+     */
+    public double[] multiply(double[] a, double[] b){
+        return multiply(a, a.length, b, b.length);
+    }
+
+    /**
+     * Multiplies the first aLength coefficients of a by the first bLength
+     * coefficients of b.
+     */
+    double[] multiply(double[] a, int aLength, double[] b, int bLength){
+        if(aLength == 0 || bLength == 0){
+            return new double[0];
+        }
+        double[] result = new double[aLength + bLength - 1];
+        if(Math.min(aLength, bLength) < karatsubaThreshold){
+            schoolbook(a, 0, aLength, b, 0, bLength, result, 0);
+        } else if(result.length >= fftThreshold){
+            fft(a, aLength, b, bLength, result);
+        } else {
+            unbalanced(a, aLength, b, bLength, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the largest difference allowed between a coefficient of a
+     * Karatsuba or FFT product and the exact product.
+     *
+     * @param a the coefficients of the first polynomial.
+     * @param aLength the number of coefficients of a in use.
+     * @param b the coefficients of the second polynomial.
+     * @param bLength the number of coefficients of b in use.
+     * @return TOLERANCE times the euclidean norms of a and b.
+     */
+    public static double errorBound(double[] a, int aLength, double[] b, int bLength){
+        return TOLERANCE * norm(a, aLength) * norm(b, bLength);
+    }
+
+    private static double norm(double[] a, int length){
+        double sum = 0;
+        for(int i = 0; i < length; i++){
+            sum += a[i] * a[i];
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static void schoolbook(double[] a, int aOff, int aLength,
+                                   double[] b, int bOff, int bLength,
+                                   double[] r, int rOff){
+        // Accumulates a * b into r starting at rOff.
+        for(int i = 0; i < aLength; i++){
+            double coef = a[aOff + i];
+            if(coef == 0){
+                continue;
+            }
+            for(int j = 0; j < bLength; j++){
+                r[rOff + i + j] += coef * b[bOff + j];
+            }
+        }
+    }
+
+    private void unbalanced(double[] a, int aLength, double[] b, int bLength,
+                            double[] r){
+        // Karatsuba wants operands of equal length, so the longer operand is cut
+        // into pieces the length of the shorter one.
+        if(aLength < bLength){
+            double[] t = a; a = b; b = t;
+            int l = aLength; aLength = bLength; bLength = l;
+        }
+        double[] piece = new double[bLength];
+        double[] partial = new double[2 * bLength - 1];
+        for(int start = 0; start < aLength; start += bLength){
+            int n = Math.min(bLength, aLength - start);
+            System.arraycopy(a, start, piece, 0, n);
+            Arrays.fill(piece, n, bLength, 0.0);
+            Arrays.fill(partial, 0.0);
+            karatsuba(piece, 0, b, 0, bLength, partial, 0);
+            int length = Math.min(partial.length, r.length - start);
+            for(int i = 0; i < length; i++){
+                r[start + i] += partial[i];
+            }
+        }
+    }
+
+    private void karatsuba(double[] a, int aOff, double[] b, int bOff, int n,
+                           double[] r, int rOff){
+        // Accumulates the product of two length n slices into r[rOff, rOff+2n-1).
+        if(n < karatsubaThreshold){
+            schoolbook(a, aOff, n, b, bOff, n, r, rOff);
+            return;
+        }
+        int low = n / 2;
+        int high = n - low;
+        double[] z0 = new double[2 * low - 1];
+        double[] z2 = new double[2 * high - 1];
+        karatsuba(a, aOff, b, bOff, low, z0, 0);
+        karatsuba(a, aOff + low, b, bOff + low, high, z2, 0);
+
+        double[] sumA = new double[high];
+        double[] sumB = new double[high];
+        for(int i = 0; i < high; i++){
+            sumA[i] = a[aOff + low + i];
+            sumB[i] = b[bOff + low + i];
+        }
+        for(int i = 0; i < low; i++){
+            sumA[i] += a[aOff + i];
+            sumB[i] += b[bOff + i];
+        }
+        double[] z1 = new double[2 * high - 1];
+        karatsuba(sumA, 0, sumB, 0, high, z1, 0);
+        for(int i = 0; i < z0.length; i++){
+            z1[i] -= z0[i];
+            r[rOff + i] += z0[i];
+        }
+        for(int i = 0; i < z2.length; i++){
+            z1[i] -= z2[i];
+            r[rOff + 2 * low + i] += z2[i];
+        }
+        for(int i = 0; i < z1.length; i++){
+            r[rOff + low + i] += z1[i];
+        }
+    }
+
+    private static void fft(double[] a, int aLength, double[] b, int bLength,
+                            double[] r){
+        // Packs a into the real part and b into the imaginary part so a single
+        // forward transform covers both operands. If C = FFT(a + ib) then
+        // A[k]B[k] = (C[k]^2 - conj(C[n-k])^2) / 4i.
+        int n = Integer.highestOneBit(r.length);
+        if(n < r.length){
+            n <<= 1;
+        }
+        double[] re = new double[n];
+        double[] im = new double[n];
+        System.arraycopy(a, 0, re, 0, aLength);
+        System.arraycopy(b, 0, im, 0, bLength);
+        transform(re, im, false);
+        double[] pr = new double[n];
+        double[] pi = new double[n];
+        for(int k = 0; k < n; k++){
+            int m = (n - k) & (n - 1);
+            double xr = re[k];
+            double xi = im[k];
+            double yr = re[m];
+            double yi = -im[m];
+            // (x^2 - y^2) / 4i, written out in real arithmetic.
+            double sr = xr * xr - xi * xi - (yr * yr - yi * yi);
+            double si = 2 * xr * xi - 2 * yr * yi;
+            pr[k] = si / 4;
+            pi[k] = -sr / 4;
+        }
+        transform(pr, pi, true);
+        double bound = errorBound(a, aLength, b, bLength);
+        for(int i = 0; i < r.length; i++){
+            double coef = pr[i] / n;
+            r[i] = Math.abs(coef) <= bound ? 0.0 : coef;
+        }
+    }
+
+    private static void transform(double[] re, double[] im, boolean inverse){
+        // Iterative radix-2 transform, unscaled in both directions.
+        int n = re.length;
+        for(int i = 1, j = 0; i < n; i++){
+            int bit = n >> 1;
+            for(; (j & bit) != 0; bit >>= 1){
+                j ^= bit;
+            }
+            j ^= bit;
+            if(i < j){
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        // Twiddle factors are computed directly rather than by repeated
+        // multiplication, which would accumulate rounding error.
+        double[] cos = new double[n / 2];
+        double[] sin = new double[n / 2];
+        for(int i = 0; i < n / 2; i++){
+            double angle = 2 * Math.PI * i / n;
+            cos[i] = Math.cos(angle);
+            sin[i] = inverse ? Math.sin(angle) : -Math.sin(angle);
+        }
+        for(int length = 2; length <= n; length <<= 1){
+            int half = length >> 1;
+            int step = n / length;
+            for(int start = 0; start < n; start += length){
+                for(int k = 0; k < half; k++){
+                    double wr = cos[k * step];
+                    double wi = sin[k * step];
+                    int u = start + k;
+                    int v = u + half;
+                    double tr = re[v] * wr - im[v] * wi;
+                    double ti = re[v] * wi + im[v] * wr;
+                    re[v] = re[u] - tr;
+                    im[v] = im[u] - ti;
+                    re[u] += tr;
+                    im[u] += ti;
+                }
+            }
+        }
+    }
+}
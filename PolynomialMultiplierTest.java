@@ -0,0 +1,74 @@
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class PolynomialMultiplierTest extends TestCase{
+    private static final PolynomialMultiplier schoolbook =
+        new PolynomialMultiplier(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    private static final PolynomialMultiplier karatsuba =
+        new PolynomialMultiplier(2, Integer.MAX_VALUE);
+    private static final PolynomialMultiplier fft = new PolynomialMultiplier(2, 1);
+    
+    public void testSmall(){
+        double[] a = {1, 2, 3};
+        double[] b = {4, 5};
+        double[] expected = {4, 13, 22, 15};
+        PolynomialFixtures.assertClose(expected, schoolbook.multiply(a, b), 0);
+        PolynomialFixtures.assertClose(expected, karatsuba.multiply(a, b), 1e-12);
+        PolynomialFixtures.assertClose(expected, fft.multiply(a, b), 1e-12);
+        assertTrue(schoolbook.multiply(a, new double[0]).length == 0);
+    }
+    
+    public void testAgainstSchoolbook(){
+        Random random = new Random(143);
+        int[][] sizes = {{37, 37}, {100, 3}, {250, 180}, {1000, 999}, {4096, 17}};
+        for(int[] size : sizes){
+            double[] a = PolynomialFixtures.uniform(random, size[0], 100);
+            double[] b = PolynomialFixtures.uniform(random, size[1], 100);
+            double[] expected = schoolbook.multiply(a, b);
+            double bound = PolynomialMultiplier.errorBound(a, a.length, b, b.length);
+            PolynomialFixtures.assertClose(expected, karatsuba.multiply(a, b), bound);
+            PolynomialFixtures.assertClose(expected, fft.multiply(a, b), bound);
+            PolynomialFixtures.assertClose(expected,
+                                           PolynomialMultiplier.getDefault().multiply(a, b), bound);
+        }
+    }
+    
+    public void testFftDropsNoise(){
+        // (x^1000 + 1)(x^1000 - 1) has no middle terms at all.
+        Polynomial a = new Polynomial("1 1000 1 0");
+        Polynomial b = new Polynomial("1 1000 -1 0");
+        a.addTerm(1, 500);
+        b.addTerm(1, 500);
+        for(int i = 1; i < 500; i++){
+            a.addTerm(1, i);
+            b.addTerm(-1, i);
+        }
+        assertTrue(a.isDense() && b.isDense());
+        Polynomial expected = Polynomial.product(a, b, schoolbook);
+        Polynomial product = Polynomial.product(a, b, fft);
+        assertTrue(product.terms() == expected.terms());
+        for(int e = 0; e <= 2000; e++){
+            assertEquals(expected.getCoefficient(e), product.getCoefficient(e), 1e-9);
+        }
+    }
+    
+    public void testSparseProduct(){
+        Polynomial a = new Polynomial("1 100000 1 50000 1 0");
+        Polynomial b = new Polynomial("1 100000 -1 50000 1 0");
+        Polynomial product = Polynomial.product(a, b);
+        assertTrue(product.equals(new Polynomial("1 200000 1 100000 1 0")));
+        assertFalse(product.isDense());
+        assertTrue(Polynomial.product(a, new Polynomial("")).terms() == 0);
+    }
+    
+    public void testThresholds(){
+        PolynomialMultiplier m = new PolynomialMultiplier(8, 64);
+        assertTrue(m.karatsubaThreshold() == 8);
+        assertTrue(m.fftThreshold() == 64);
+        try{
+            new PolynomialMultiplier(1, 64);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Interpolation through many points, behind Polynomial.interpolate.
+ *
+ * Interpolation in the monomial basis is ill-conditioned for many real points
+ * by any method, and fits general data at no more than about 50 of them.
+ * Fast interpolation up a subproduct tree only beats Newton's divided
+ * differences from thousands of points, where its result can never fit, so
+ * interpolation is done by divided differences alone and the result checked
+ * at every point.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class PolynomialMultipoint{
+
+    private static final double STABILITY_TOLERANCE = 1e-8;
+
+    private PolynomialMultipoint(){
+    }
+
+    /**
+     * Returns the dense coefficients of the polynomial of lowest degree
+     * through the points (xs[i], ys[i]), or null if rounding has spoiled
+     * them. The xs must be distinct.
+     */
+    static double[] interpolate(double[] xs, double[] ys){
+        double scale = PolynomialDivision.maxAbs(ys, ys.length);
+        if(scale == 0){
+            return new double[0];
+        }
+        double[] p = newtonInterpolate(xs, ys);
+        return fits(p, xs, ys, scale) ? p : null;
+    }
+
+    private static boolean fits(double[] p, double[] xs, double[] ys, double scale){
+        for(int i = 0; i < xs.length; i++){
+            double value = 0;
+            for(int e = p.length - 1; e >= 0; e--){
+                value = value * xs[i] + p[e];
+            }
+            if(!(Math.abs(value - ys[i]) <= STABILITY_TOLERANCE * scale)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double[] newtonInterpolate(double[] xs, double[] ys){
+        // Divided differences, then the Newton form expanded by Horner's scheme.
+        int n = xs.length;
+        double[] c = ys.clone();
+        for(int k = 1; k < n; k++){
+            for(int i = n - 1; i >= k; i--){
+                c[i] = (c[i] - c[i - 1]) / (xs[i] - xs[i - k]);
+            }
+        }
+        double[] p = new double[n];
+        p[0] = c[n - 1];
+        for(int k = n - 2; k >= 0; k--){
+            // p = p * (x - x_k) + c_k
+            for(int e = n - 1 - k; e >= 1; e--){
+                p[e] = p[e - 1] - xs[k] * p[e];
+            }
+            p[0] = c[k] - xs[k] * p[0];
+        }
+        return p;
+    }
+}
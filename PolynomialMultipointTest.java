@@ -0,0 +1,87 @@
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class PolynomialMultipointTest extends TestCase{
+    
+    public void testEvaluateAllSmall(){
+        Polynomial p = new Polynomial("3 4 -2 1 5 0");
+        double[] xs = {0, 1, -1, 2.5};
+        double[] out = p.evaluateAll(xs);
+        for(int i = 0; i < xs.length; i++){
+            assertTrue(out[i] == p.evaluate(xs[i]));
+        }
+        assertTrue(new Polynomial("").evaluateAll(xs)[3] == 0);
+        assertTrue(p.evaluateAll(new double[0]).length == 0);
+    }
+    
+    public void testEvaluateAllLarge(){
+        // The values are exactly those evaluate gives at each point.
+        Random random = new Random(143);
+        Polynomial p = PolynomialFixtures.randomOfDegree(random, 2000);
+        double[] xs = PolynomialFixtures.uniform(random, 3000, 1);
+        double[] out = p.evaluateAll(xs);
+        for(int i = 0; i < xs.length; i++){
+            assertTrue(out[i] == p.evaluate(xs[i]));
+        }
+    }
+    
+    public void testInterpolateSmall(){
+        double[] xs = {0, 1, 2, -1};
+        double[] ys = {1, 2, 11, 2};
+        // 1 + x^2 + x^3 - x
+        Polynomial p = Polynomial.interpolate(xs, ys);
+        for(int i = 0; i < xs.length; i++){
+            assertEquals(ys[i], p.evaluate(xs[i]), 1e-12);
+        }
+        assertEquals(1, p.getCoefficient(3), 1e-12);
+        assertEquals(-1, p.getCoefficient(1), 1e-12);
+        assertTrue(Polynomial.interpolate(xs, new double[4]).terms() == 0);
+        assertTrue(Polynomial.interpolate(new double[0], new double[0]).terms() == 0);
+        try{
+            Polynomial.interpolate(new double[] {1, 2, 1}, new double[3]);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            Polynomial.interpolate(xs, new double[3]);
+            fail("Expected IllegalArgumentException not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    public void testInterpolateChebyshev(){
+        // Random data at 16 Chebyshev points, and smooth data at 40.
+        Random random = new Random(143);
+        for(int n : new int[]{16, 40}){
+            double[] xs = new double[n];
+            double[] ys = PolynomialFixtures.uniform(random, n, 1);
+            for(int i = 0; i < n; i++){
+                xs[i] = Math.cos(Math.PI * (i + 0.5) / n);
+                if(n > 16){
+                    ys[i] = Math.sin(3 * xs[i]);
+                }
+            }
+            Polynomial poly = Polynomial.interpolate(xs, ys);
+            assertTrue(poly.toDenseArray().length <= n);
+            for(int i = 0; i < n; i++){
+                assertEquals(ys[i], poly.evaluate(xs[i]), 1e-7);
+            }
+        }
+    }
+    
+    public void testIllConditioned(){
+        // A few hundred real points cannot be interpolated in double precision.
+        int n = 300;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for(int i = 0; i < n; i++){
+            xs[i] = Math.cos(Math.PI * (i + 0.5) / n);
+            ys[i] = Math.sin(3 * xs[i]);
+        }
+        try{
+            Polynomial.interpolate(xs, ys);
+            fail("Expected ArithmeticException not thrown.");
+        } catch (ArithmeticException e){
+        }
+    }
+}
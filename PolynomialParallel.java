@@ -0,0 +1,171 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The fork/join tasks behind Polynomial.parallelProduct and
+ * Polynomial.parallelSum. Work is always split the same way for the same
+ * operands, never by the number of threads available, and partial results are
+ * always combined in the same order, so floating point results do not depend
+ * on scheduling.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class PolynomialParallel{
+
+    // Operands are cut into at most this many chunks, each at least MIN_CHUNK
+    // coefficients or terms long.
+    private static final int MAX_CHUNKS = 64;
+    private static final int MIN_CHUNK = 512;
+    // Length of the output ranges the dense partial products are merged in.
+    private static final int MERGE_RANGE = 1 << 15;
+
+    private PolynomialParallel(){
+    }
+
+    /**
+     * Multiplies two dense coefficient arrays, a being the longer.
+     */
+    static double[] multiply(double[] a, double[] b, ForkJoinPool pool){
+        int chunk = chunkSize(a.length);
+        int chunks = (a.length + chunk - 1) / chunk;
+        double[][] partials = new double[chunks][];
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks];
+        for(int k = 0; k < chunks; k++){
+            int start = k * chunk;
+            int end = Math.min(a.length, start + chunk);
+            int index = k;
+            tasks[k] = ForkJoinTask.adapt(() -> {
+                partials[index] = PolynomialMultiplier.getDefault()
+                    .multiply(Arrays.copyOfRange(a, start, end), b);
+            });
+        }
+        pool.invoke(new RecursiveAction(){
+            private static final long serialVersionUID = 1L;
+
+            protected void compute(){
+                invokeAll(tasks);
+            }
+        });
+        // Partial k starts at exponent k * chunk. Each range of the result
+        // adds the partials overlapping it in order of k.
+        double[] result = new double[a.length + b.length - 1];
+        pool.invoke(new Merge(partials, chunk, result, 0, result.length));
+        return result;
+    }
+
+    /**
+     * Multiplies a polynomial, given as its terms in descending order, by b.
+     */
+    static Polynomial multiply(int[] exp, double[] coeff, Polynomial b,
+                               ForkJoinPool pool){
+        int chunk = chunkSize(exp.length);
+        int chunks = (exp.length + chunk - 1) / chunk;
+        Polynomial[] partials = new Polynomial[chunks];
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks];
+        for(int k = 0; k < chunks; k++){
+            int start = k * chunk;
+            int end = Math.min(exp.length, start + chunk);
+            int index = k;
+            tasks[k] = ForkJoinTask.adapt(() -> {
+                Polynomial piece = Polynomial.fromSparse(
+                    Arrays.copyOfRange(exp, start, end),
+                    Arrays.copyOfRange(coeff, start, end), end - start);
+                partials[index] = Polynomial.product(piece, b);
+            });
+        }
+        pool.invoke(new RecursiveAction(){
+            private static final long serialVersionUID = 1L;
+
+            protected void compute(){
+                invokeAll(tasks);
+            }
+        });
+        return pool.invoke(new Sum(partials, 0, partials.length));
+    }
+
+    /**
+     * Adds up polynomials in a balanced tree.
+     */
+    static Polynomial sum(Polynomial[] polynomials, ForkJoinPool pool){
+        return pool.invoke(new Sum(polynomials, 0, polynomials.length));
+    }
+
+    private static int chunkSize(int length){
+        return Math.max(MIN_CHUNK, (length + MAX_CHUNKS - 1) / MAX_CHUNKS);
+    }
+
+    /**
+     * Adds the dense partial products into one range of the result.
+     */
+    private static class Merge extends RecursiveAction{
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] partials;
+        private final int chunk;
+        private final double[] result;
+        private final int start;
+        private final int end;
+
+        Merge(double[][] partials, int chunk, double[] result, int start, int end){
+            this.partials = partials;
+            this.chunk = chunk;
+            this.result = result;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected void compute(){
+            if(end - start > MERGE_RANGE){
+                int middle = (start + end) >>> 1;
+                invokeAll(new Merge(partials, chunk, result, start, middle),
+                          new Merge(partials, chunk, result, middle, end));
+                return;
+            }
+            for(int k = 0; k < partials.length; k++){
+                int offset = k * chunk;
+                int from = Math.max(start, offset);
+                int to = Math.min(end, offset + partials[k].length);
+                for(int i = from; i < to; i++){
+                    result[i] += partials[k][i - offset];
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the polynomials in [start, end), splitting the range in halves.
+     */
+    private static class Sum extends RecursiveTask<Polynomial>{
+        private static final long serialVersionUID = 1L;
+
+        private final Polynomial[] polynomials;
+        private final int start;
+        private final int end;
+
+        Sum(Polynomial[] polynomials, int start, int end){
+            this.polynomials = polynomials;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected Polynomial compute(){
+            if(end - start == 1){
+                return new Polynomial(polynomials[start]);
+            }
+            if(end - start == 2){
+                return Polynomial.sum(polynomials[start], polynomials[start + 1]);
+            }
+            int middle = (start + end) >>> 1;
+            Sum left = new Sum(polynomials, start, middle);
+            left.fork();
+            Polynomial right = new Sum(polynomials, middle, end).compute();
+            Polynomial sum = left.join();
+            sum.addInPlace(right);
+            return sum;
+        }
+    }
+}
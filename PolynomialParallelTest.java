@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import junit.framework.TestCase;
+
+public class PolynomialParallelTest extends TestCase{
+    
+    public void testDeterministicProduct(){
+        Random random = new Random(143);
+        Polynomial[][] operands = {
+            {PolynomialFixtures.random(random, 20000, 1),
+             PolynomialFixtures.random(random, 3000, 1)},
+            {PolynomialFixtures.random(random, 5000, 37),
+             PolynomialFixtures.random(random, 40, 1001)}
+        };
+        for(Polynomial[] pair : operands){
+            Polynomial expected = Polynomial.product(pair[0], pair[1]);
+            Polynomial first = null;
+            for(int threads : new int[] {1, 2, 7}){
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try{
+                    Polynomial product = Polynomial.parallelProduct(pair[0], pair[1], pool);
+                    if(first == null){
+                        first = product;
+                        assertTrue(expected.terms() == product.terms());
+                        PolynomialFixtures.assertClose(expected, product, 1e-9);
+                    } else {
+                        assertTrue(product.equals(first));
+                    }
+                    assertTrue(Polynomial.parallelProduct(pair[1], pair[0], pool).equals(first));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+    
+    public void testDeterministicSum(){
+        Random random = new Random(143);
+        List<Polynomial> polys = new ArrayList<>();
+        for(int i = 0; i < 301; i++){
+            polys.add(PolynomialFixtures.random(random, 1 + random.nextInt(500), 1 + i % 3));
+        }
+        Polynomial expected = new Polynomial("");
+        for(Polynomial p : polys){
+            expected.addInPlace(p);
+        }
+        Polynomial first = null;
+        for(int threads : new int[] {1, 3, 8}){
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try{
+                Polynomial sum = Polynomial.parallelSum(polys, pool);
+                if(first == null){
+                    first = sum;
+                    assertTrue(expected.terms() == sum.terms());
+                    PolynomialFixtures.assertClose(expected, sum, 1e-9);
+                } else {
+                    assertTrue(sum.equals(first));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        assertTrue(Polynomial.parallelSum(new ArrayList<Polynomial>(),
+                                          ForkJoinPool.commonPool()).terms() == 0);
+    }
+    
+    public void testIndexedSum(){
+        // The same indexed polynomial, with changes still staged, many times
+        // over. Its staged changes are merged before any task reads it.
+        Polynomial p = new Polynomial("1 0");
+        p.setIndexed(true);
+        for(int i = 1; i <= 5000; i++){
+            p.addTerm(i, 64 * i);
+        }
+        List<Polynomial> polys = new ArrayList<>();
+        for(int i = 0; i < 64; i++){
+            polys.add(p);
+        }
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try{
+            Polynomial sum = Polynomial.parallelSum(polys, pool);
+            assertTrue(sum.terms() == 5001);
+            assertTrue(sum.getCoefficient(0) == 64);
+            for(int i = 1; i <= 5000; i++){
+                assertTrue(sum.getCoefficient(64 * i) == 64 * i);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
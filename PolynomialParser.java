@@ -0,0 +1,301 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Parses the text form of a polynomial: whitespace separated pairs of a real
+ * coefficient followed by an integer exponent, e.g. "3 5 -2.5 1 9 0". Input is
+ * read once, token by token, with each number checked as it is converted, so
+ * there is no separate validation pass and no regular expressions. Malformed
+ * input is reported with a PolynomialFormatException giving the position of
+ * the bad token.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class PolynomialParser{
+
+    private static final int BUFFER = 8192;
+    // Powers of ten which are exact doubles, for the fast conversion path.
+    private static final double[] POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Source source;
+    private final char[] buffer = new char[BUFFER];
+    private int length; // number of characters in buffer
+    private int index; // next character in buffer
+    private long offset; // position in the input of buffer[0]
+    private char[] token = new char[32];
+    private int tokenLength;
+    private long tokenStart;
+
+    private PolynomialParser(Source source){
+        this.source = source;
+    }
+
+    /**
+     * Parses a polynomial from a CharSequence.
+     *
+     * @param s the text of the polynomial.
+     * @return the parsed polynomial.
+     * @throws NullPointerException if s is null.
+     * @throws PolynomialFormatException if the text is malformed.
+     */
+    public static Polynomial parse(CharSequence s){
+        CharBuffer chars = CharBuffer.wrap(s);
+        try{
+            return new PolynomialParser(buf -> {
+                int n = Math.min(buf.length, chars.remaining());
+                chars.get(buf, 0, n);
+                return n == 0 ? -1 : n;
+            }).parse();
+        } catch (IOException e){
+            // A CharBuffer never throws.
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Parses a polynomial from a Reader, which is read to its end but not
+     * closed.
+     *
+     * @param reader the reader supplying the text of the polynomial.
+     * @return the parsed polynomial.
+     * @throws IOException if the reader throws.
+     * @throws NullPointerException if reader is null.
+     * @throws PolynomialFormatException if the text is malformed.
+     */
+    public static Polynomial parse(Reader reader) throws IOException{
+        if(reader == null) throw new NullPointerException();
+        return new PolynomialParser(buf -> reader.read(buf, 0, buf.length)).parse();
+    }
+
+    /**
+     * Parses a polynomial from a file of ASCII text, which is memory-mapped
+     * rather than read through a stream. Positions in error messages are byte
+     * offsets into the file.
+     *
+     * @param path the file holding the polynomial.
+     * @return the parsed polynomial.
+     * @throws IOException if the file cannot be opened or mapped.
+     * @throws PolynomialFormatException if the text is malformed.
+     */
+    public static Polynomial parse(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            long size = channel.size();
+            long[] mapped = {0};
+            MappedByteBuffer[] window = new MappedByteBuffer[1];
+            // Files over 2GB are mapped a window at a time.
+            return new PolynomialParser(buf -> {
+                if(window[0] == null || !window[0].hasRemaining()){
+                    if(mapped[0] == size){
+                        return -1;
+                    }
+                    long n = Math.min(Integer.MAX_VALUE, size - mapped[0]);
+                    window[0] = channel.map(FileChannel.MapMode.READ_ONLY, mapped[0], n);
+                    mapped[0] += n;
+                }
+                int n = Math.min(buf.length, window[0].remaining());
+                for(int i = 0; i < n; i++){
+                    buf[i] = (char)(window[0].get() & 0xff);
+                }
+                return n;
+            }).parse();
+        }
+    }
+
+    private Polynomial parse() throws IOException{
+        PolynomialBuilder builder = new PolynomialBuilder();
+        while(nextToken()){
+            double coef = toDouble();
+            long coefStart = tokenStart;
+            if(!nextToken()){
+                throw new PolynomialFormatException("Missing exponent", coefStart);
+            }
+            int exp = toInt();
+            if(exp < 0){
+                throw new PolynomialFormatException("Negative exponent", tokenStart);
+            }
+            builder.add(coef, exp);
+        }
+        return builder.build();
+    }
+
+    private boolean nextToken() throws IOException{
+        // Skips whitespace, then copies characters up to the next whitespace
+        // into token. Returns false at the end of the input.
+        tokenLength = 0;
+        int c = read();
+        while(c >= 0 && Character.isWhitespace(c)){
+            c = read();
+        }
+        if(c < 0){
+            return false;
+        }
+        tokenStart = offset + index - 1;
+        while(c >= 0 && !Character.isWhitespace(c)){
+            if(tokenLength == token.length){
+                token = Arrays.copyOf(token, tokenLength * 2);
+            }
+            token[tokenLength++] = (char)c;
+            c = read();
+        }
+        return true;
+    }
+
+    private int read() throws IOException{
+        if(index == length){
+            offset += length;
+            index = 0;
+            length = 0;
+            int n = source.read(buffer);
+            if(n <= 0){
+                return -1;
+            }
+            length = n;
+        }
+        return buffer[index++];
+    }
+
+    private double toDouble(){
+        // Plain decimals of up to 15 significant digits are converted directly:
+        // both the digits and the power of ten are exact doubles, so a single
+        // multiply or divide gives the correctly rounded result. Anything else
+        // is handed to Double.parseDouble once the syntax has been checked.
+        int i = 0;
+        boolean negative = false;
+        if(token[0] == '-' || token[0] == '+'){
+            negative = token[0] == '-';
+            i++;
+        }
+        if(i < tokenLength && Character.isLetter(token[i])){
+            return special(negative, i);
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for(; i < tokenLength; i++){
+            char c = token[i];
+            if(c >= '0' && c <= '9'){
+                seenDigit = true;
+                // Leading zeros are not significant, and digits past the 18th
+                // only matter to Double.parseDouble.
+                if(mantissa != 0 || c != '0'){
+                    if(digits < 18){
+                        mantissa = mantissa * 10 + (c - '0');
+                    } else {
+                        scale++;
+                    }
+                    digits++;
+                }
+                if(seenPoint){
+                    scale--;
+                }
+            } else if(c == '.' && !seenPoint){
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if(!seenDigit){
+            throw malformed("Malformed number");
+        }
+        if(i < tokenLength){
+            if(token[i] != 'e' && token[i] != 'E'){
+                throw malformed("Malformed number");
+            }
+            i++;
+            int sign = 1;
+            if(i < tokenLength && (token[i] == '-' || token[i] == '+')){
+                sign = token[i] == '-' ? -1 : 1;
+                i++;
+            }
+            if(i == tokenLength){
+                throw malformed("Malformed number");
+            }
+            int power = 0;
+            for(; i < tokenLength; i++){
+                char c = token[i];
+                if(c < '0' || c > '9'){
+                    throw malformed("Malformed number");
+                }
+                power = Math.min(power * 10 + (c - '0'), 100000);
+            }
+            scale += sign * power;
+        }
+        double value;
+        if(digits <= 15 && scale >= -22 && scale <= 22){
+            value = scale < 0 ? mantissa / POWERS[-scale] : mantissa * POWERS[scale];
+        } else {
+            value = Double.parseDouble(new String(token, 0, tokenLength));
+            return value;
+        }
+        return negative ? -value : value;
+    }
+
+    private double special(boolean negative, int i){
+        // NaN and Infinity, spelled as Double.toString writes them.
+        String word = new String(token, i, tokenLength - i);
+        if(word.equals("Infinity")){
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        if(word.equals("NaN")){
+            return Double.NaN;
+        }
+        throw malformed("Real numbers only.");
+    }
+
+    private int toInt(){
+        int i = 0;
+        boolean negative = false;
+        if(token[0] == '-' || token[0] == '+'){
+            negative = token[0] == '-';
+            i++;
+        }
+        if(i == tokenLength){
+            throw malformed("Malformed exponent");
+        }
+        long value = 0;
+        for(; i < tokenLength; i++){
+            char c = token[i];
+            if(c < '0' || c > '9'){
+                throw malformed("Malformed exponent");
+            }
+            value = value * 10 + (c - '0');
+            if(value > Integer.MAX_VALUE + 1L){
+                throw malformed("Exponent out of range");
+            }
+        }
+        value = negative ? -value : value;
+        if(value > Integer.MAX_VALUE){
+            throw malformed("Exponent out of range");
+        }
+        return (int)value;
+    }
+
+    private PolynomialFormatException malformed(String message){
+        return new PolynomialFormatException(message + " \""
+            + new String(token, 0, tokenLength) + "\"", tokenStart);
+    }
+
+    /**
+     * Supplies characters to the parser a buffer at a time.
+     */
+    private interface Source{
+        /**
+         * Fills buf from the start with the next characters of the input.
+         *
+         * @return the number of characters read, or -1 at the end of the input.
+         */
+        int read(char[] buf) throws IOException;
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import junit.framework.TestCase;
+
+public class PolynomialParserTest extends TestCase{
+    private static final String string = "3 5 4 4 5 3 6 2 1 1 9 0";
+    private static final Polynomial master = new Polynomial(string);
+    
+    public void testSources() throws IOException{
+        assertTrue(PolynomialParser.parse(new StringBuilder(string)).equals(master));
+        assertTrue(PolynomialParser.parse(new StringReader(string)).equals(master));
+        Path file = Files.createTempFile("polynomial", ".txt");
+        try{
+            Files.write(file, string.getBytes(StandardCharsets.US_ASCII));
+            assertTrue(PolynomialParser.parse(file).equals(master));
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    public void testNumbers(){
+        String[] numbers = {"0.5", "-2.25", "+7", "1e3", "-1.5E-4", ".125", "12.",
+                            "3.141592653589793", "1234567890123456789012",
+                            "0.1", "0.30000000000000004", "5e-324", "1e400"};
+        for(String number : numbers){
+            Polynomial poly = PolynomialParser.parse(number + " 2");
+            assertTrue(number, poly.getCoefficient(2) == Double.parseDouble(number));
+        }
+    }
+    
+    public void testLong(){
+        // Longer than the parser's buffer, so tokens straddle refills.
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 5000; i++){
+            text.append("\t1.25 ").append(i).append('\n');
+        }
+        Polynomial poly = PolynomialParser.parse(text);
+        assertTrue(poly.terms() == 5000);
+        assertTrue(poly.getCoefficient(4321) == 1.25);
+    }
+    
+    public void testMalformed(){
+        assertPosition("3 5 abc 4", 4);
+        assertPosition("3 5 4 4.5", 6);
+        assertPosition("3 5 4", 4);
+        assertPosition("3 -5", 2);
+        assertPosition("1e 2", 0);
+        assertPosition("3 99999999999", 2);
+        try{
+            new Polynomial("1 2 x 3");
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    private void assertPosition(String text, long position){
+        try{
+            PolynomialParser.parse(text);
+            fail("Expected PolynomialFormatException for " + text);
+        } catch (PolynomialFormatException e){
+            assertTrue(e.getMessage(), e.getPosition() == position);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A file holding many polynomials in the binary form of PolynomialCodec,
+ * opened by memory-mapping it. Opening costs the same however many
+ * polynomials the file holds, since nothing is read until a polynomial is
+ * asked for, and polynomials can be evaluated straight from the mapped bytes.
+ *
+ * The file starts with the magic bytes "PSTR", the format version and the
+ * number of polynomials, followed by a table giving the offset of each record
+ * and of the end of the last one. Stores are limited to 2GB.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class PolynomialStore implements Closeable{
+
+    private static final int MAGIC = 0x50535452; // "PSTR"
+    private static final int HEADER = 12;
+
+    private final FileChannel channel;
+    private final ByteBuffer data; // read-only, the whole file
+    private final int count;
+
+    private PolynomialStore(FileChannel channel, ByteBuffer data, int count){
+        this.channel = channel;
+        this.data = data;
+        this.count = count;
+    }
+
+    /**
+     * Writes polynomials to a new store file, replacing any existing file.
+     *
+     * @param path the file to write.
+     * @param polynomials the polynomials to store, in index order.
+     * @throws IOException if the file cannot be written or would be over 2GB.
+     * @throws NullPointerException if any argument or polynomial is null.
+     */
+    public static void write(Path path, List<? extends Polynomial> polynomials)
+            throws IOException{
+        int n = polynomials.size();
+        long[] offsets = new long[n + 1];
+        offsets[0] = HEADER + 8L * (n + 1);
+        for(int i = 0; i < n; i++){
+            offsets[i + 1] = offsets[i] + PolynomialCodec.recordSize(polynomials.get(i));
+        }
+        if(offsets[n] > Integer.MAX_VALUE){
+            throw new IOException("Store too large.");
+        }
+        try(FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+                StandardOpenOption.READ)){
+            ByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, offsets[n]);
+            buffer.putInt(MAGIC);
+            buffer.putInt(PolynomialCodec.VERSION);
+            buffer.putInt(n);
+            for(long offset : offsets){
+                buffer.putLong(offset);
+            }
+            for(Polynomial p : polynomials){
+                PolynomialCodec.writeRecord(p, buffer);
+            }
+        }
+    }
+
+    /**
+     * Opens a store file for reading.
+     *
+     * @param path the file to open.
+     * @return the open store.
+     * @throws IOException if the file cannot be read or is not a store of a
+     * known version.
+     */
+    public static PolynomialStore open(Path path) throws IOException{
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try{
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE || size < HEADER){
+                throw new IOException("Not a polynomial store.");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                                     .asReadOnlyBuffer();
+            if(data.getInt(0) != MAGIC){
+                throw new IOException("Not a polynomial store.");
+            }
+            if(data.getInt(4) != PolynomialCodec.VERSION){
+                throw new IOException("Unknown version " + data.getInt(4));
+            }
+            int count = data.getInt(8);
+            if(count < 0 || HEADER + 8L * (count + 1) > size
+               || data.getLong(HEADER + 8 * count) != size){
+                throw new IOException("Corrupt polynomial store.");
+            }
+            return new PolynomialStore(channel, data, count);
+        } catch (IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of polynomials in the store.
+     *
+     * @return the number of polynomials.
+     */
+    public int size(){
+        return count;
+    }
+
+    /**
+     * Decodes the polynomial at an index.
+     *
+     * @param index the index of the polynomial.
+     * @return a new Polynomial equal to the one stored.
+     * @throws IndexOutOfBoundsException if index is out of range.
+     * @throws IllegalArgumentException if the record is corrupt.
+     */
+    public Polynomial get(int index){
+        return PolynomialCodec.readRecord(record(index));
+    }
+
+    /**
+     * Returns the number of terms of the polynomial at an index, without
+     * decoding it.
+     *
+     * @param index the index of the polynomial.
+     * @return the number of terms.
+     * @throws IndexOutOfBoundsException if index is out of range.
+     * @throws IllegalArgumentException if the record is corrupt.
+     */
+    public int terms(int index){
+        return PolynomialCodec.getVarint(record(index));
+    }
+
+    /**
+     * Evaluates the polynomial at an index directly from the mapped file,
+     * without creating a Polynomial.
+     *
+     * @param index the index of the polynomial.
+     * @param x the x value.
+     * @return the value of the polynomial at x.
+     * @throws IndexOutOfBoundsException if index is out of range.
+     * @throws IllegalArgumentException if the record is corrupt.
+     */
+    public double evaluate(int index, double x){
+        return PolynomialCodec.evaluateRecord(record(index), x);
+    }
+
+    /**
+     * Returns a read-only view of the bytes of the record at an index, in the
+     * record format of PolynomialCodec. Nothing is copied.
+     *
+     * @param index the index of the polynomial.
+     * @return the record, from position zero to its limit.
+     * @throws IndexOutOfBoundsException if index is out of range.
+     * @throws IllegalArgumentException if the offsets of the record lie
+     * outside the file.
+     */
+    public ByteBuffer record(int index){
+        if(index < 0 || index >= count){
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + count);
+        }
+        long start = data.getLong(HEADER + 8 * index);
+        long end = data.getLong(HEADER + 8 * (index + 1));
+        // open only checks the last offset, so a damaged table can point
+        // anywhere; records must lie between the table and the end of the file.
+        if(start < HEADER + 8L * (count + 1) || end < start || end > data.limit()){
+            throw new IllegalArgumentException("Corrupt record " + index);
+        }
+        ByteBuffer record = data.duplicate();
+        record.limit((int)end).position((int)start);
+        return record.slice();
+    }
+
+    /**
+     * Closes the file. The mapping itself is released by the garbage collector
+     * once no views of it remain.
+     *
+     * @throws IOException if closing the file fails.
+     */
+    public void close() throws IOException{
+        channel.close();
+    }
+}
@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+
+public class PolynomialStoreTest extends TestCase{
+    
+    public void testBytes(){
+        Polynomial[] polys = {new Polynomial("3 5 4 4 5 3 6 2 1 1 9 0"),
+                              new Polynomial("2 100000 -1.5 70000 0.25 0"),
+                              new Polynomial("")};
+        for(Polynomial p : polys){
+            assertTrue(PolynomialCodec.fromBytes(PolynomialCodec.toBytes(p)).equals(p));
+        }
+        byte[] bytes = PolynomialCodec.toBytes(polys[1]);
+        bytes[4] = 9;
+        try{
+            PolynomialCodec.fromBytes(bytes);
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+        try{
+            PolynomialCodec.fromBytes(new byte[] {'P', 'O', 'L', 'Y', 1, 3});
+            fail("Expected IAE not thrown.");
+        } catch (IllegalArgumentException e){
+        }
+    }
+    
+    public void testStore() throws IOException{
+        List<Polynomial> polys = new ArrayList<>();
+        for(int i = 0; i < 1000; i++){
+            Polynomial p = new Polynomial("");
+            for(int j = 0; j <= i % 40; j++){
+                p.addTerm(i + j * 0.5 + 1, j * (i % 7 + 1));
+            }
+            polys.add(p);
+        }
+        polys.add(new Polynomial(""));
+        Path file = Files.createTempFile("polynomials", ".bin");
+        try{
+            PolynomialStore.write(file, polys);
+            try(PolynomialStore store = PolynomialStore.open(file)){
+                assertTrue(store.size() == polys.size());
+                for(int i = 0; i < polys.size(); i++){
+                    Polynomial p = polys.get(i);
+                    assertTrue(store.get(i).equals(p));
+                    assertTrue(store.terms(i) == p.terms());
+                    double expected = p.evaluate(0.75);
+                    assertEquals(expected, store.evaluate(i, 0.75), 1e-12 * Math.abs(expected));
+                }
+                try{
+                    store.get(polys.size());
+                    fail("Expected IOOBE not thrown.");
+                } catch (IndexOutOfBoundsException e){
+                }
+            }
+            Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+            try{
+                PolynomialStore.open(file);
+                fail("Expected IOException not thrown.");
+            } catch (IOException e){
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    public void testTruncated() throws IOException{
+        List<Polynomial> polys = Arrays.asList(new Polynomial("2 100000"),
+                                               new Polynomial("2 100000 -1.5 70000 0.25 0"),
+                                               new Polynomial("3 5 4 4 5 3 6 2 1 1 9 0"));
+        Path file = Files.createTempFile("polynomials", ".bin");
+        try{
+            PolynomialStore.write(file, polys);
+            byte[] bytes = Files.readAllBytes(file);
+            // Cut the file in the middle of the second record and fix up the
+            // last offset so that open still accepts it.
+            ByteBuffer table = ByteBuffer.wrap(bytes);
+            int cut = (int)(table.getLong(12 + 8) + table.getLong(12 + 16)) / 2;
+            bytes = Arrays.copyOf(bytes, cut);
+            ByteBuffer.wrap(bytes).putLong(12 + 8 * polys.size(), cut);
+            Files.write(file, bytes);
+            try(PolynomialStore store = PolynomialStore.open(file)){
+                assertTrue(store.get(0).equals(polys.get(0)));
+                for(int i = 1; i < polys.size(); i++){
+                    try{
+                        store.get(i);
+                        fail("Expected IAE not thrown.");
+                    } catch (IllegalArgumentException e){
+                    }
+                    try{
+                        store.evaluate(i, 0.5);
+                        fail("Expected IAE not thrown.");
+                    } catch (IllegalArgumentException e){
+                    }
+                }
+            }
+            // Shorten the first record to 10 bytes: its count and exponent
+            // fit, but its coefficient is cut off.
+            table = ByteBuffer.wrap(bytes);
+            table.putLong(12 + 8, table.getLong(12) + 10);
+            Files.write(file, bytes);
+            try(PolynomialStore store = PolynomialStore.open(file)){
+                try{
+                    store.get(0);
+                    fail("Expected IAE not thrown.");
+                } catch (IllegalArgumentException e){
+                }
+                try{
+                    store.evaluate(0, 0.5);
+                    fail("Expected IAE not thrown.");
+                } catch (IllegalArgumentException e){
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
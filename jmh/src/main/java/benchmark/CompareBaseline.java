@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with -rf csv and lists the
+ * benchmarks whose score has grown by more than 20%, which for the average
+ * times reported here means they have slowed down. Secondary results, such
+ * as those of the GC profiler, are compared too, so a rise in allocation is
+ * caught the same way. Run with
+ *
+ *   gradle :jmh:compareBaseline --args='baseline.csv results.csv'
+ *
+ * and exits with status 1 if there is any regression.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+public class CompareBaseline{
+
+    private static final double REGRESSION = 1.2;
+
+    private CompareBaseline(){
+    }
+
+    /**
+     * Compares the results against the baseline.
+     *
+     * @param args the baseline file and the results file.
+     * @throws IOException if a file cannot be read.
+     */
+    public static void main(String[] args) throws IOException{
+        if(args.length != 2){
+            System.err.println("Usage: CompareBaseline baseline.csv results.csv");
+            System.exit(2);
+        }
+        Map<String, Double> baseline = read(args[0]);
+        Map<String, Double> results = read(args[1]);
+        int regressions = 0;
+        for(Map.Entry<String, Double> result : results.entrySet()){
+            Double previous = baseline.get(result.getKey());
+            if(previous != null && result.getValue() > previous * REGRESSION){
+                System.out.printf("REGRESSION %s: %.1f, baseline %.1f%n",
+                                  result.getKey(), result.getValue(), previous);
+                regressions++;
+            }
+        }
+        System.out.println(regressions + " regression(s) against baseline.");
+        if(regressions > 0){
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Double> read(String file) throws IOException{
+        // Scores keyed by benchmark and parameters. Each line is quoted
+        // fields: benchmark, mode, threads, samples, score, error, unit, and
+        // then the parameters.
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        Map<String, Double> scores = new HashMap<>();
+        for(String line : lines.subList(1, lines.size())){
+            String[] fields = line.split(",");
+            StringBuilder key = new StringBuilder(unquote(fields[0]));
+            for(int i = 7; i < fields.length; i++){
+                key.append(' ').append(unquote(fields[i]));
+            }
+            scores.put(key.toString(), Double.parseDouble(unquote(fields[4])));
+        }
+        return scores;
+    }
+
+    private static String unquote(String field){
+        return field.startsWith("\"") ? field.substring(1, field.length() - 1) : field;
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The compositions of ComposeBenchmark expanded by Horner's scheme with
+ * product and addTerm, as they were before Polynomial.compose, to compare
+ * against it.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NaiveComposeBenchmark{
+
+    @Param({"10", "100"})
+    int terms;
+
+    Object a;
+    Object b;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable{
+        Random random = new Random(terms);
+        a = PolynomialHandles.random(random, terms, 1);
+        b = PolynomialHandles.random(random, terms, 1);
+    }
+
+    @Benchmark
+    public Object naiveCompose() throws Throwable{
+        return PolynomialHandles.naiveCompose(a, terms - 1, b);
+    }
+}
@@ -0,0 +1,123 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Polynomial operations which are at most linear in the number of terms,
+ * from 10 to 10^6 terms, dense and sparse.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperationBenchmark{
+
+    // Terms added to each fresh copy by addTerm.
+    private static final int ADDS = 16;
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    int terms;
+
+    @Param({"dense", "sparse"})
+    String layout;
+
+    Random random;
+    Object a;
+    Object b;
+    int degree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable{
+        int spread = PolynomialHandles.spread(layout);
+        random = new Random(terms);
+        a = PolynomialHandles.random(random, terms, spread);
+        b = PolynomialHandles.random(random, terms, spread);
+        degree = (terms - 1) * spread;
+    }
+
+    /**
+     * A fresh copy of a for every call of addTerm, since addTerm changes the
+     * polynomial, with the exponents to add at. Copying is not timed.
+     */
+    @State(Scope.Thread)
+    public static class Copy{
+        Object p;
+        final int[] exps = new int[ADDS];
+
+        @Setup(Level.Invocation)
+        public void setUp(OperationBenchmark fixture) throws Throwable{
+            p = (Object)PolynomialHandles.COPY.invokeExact(fixture.a);
+            for(int i = 0; i < ADDS; i++){
+                exps[i] = fixture.random.nextInt(fixture.degree + 2);
+            }
+        }
+    }
+
+    /**
+     * As Copy, but the copy stages its changes, see Polynomial.setIndexed.
+     */
+    @State(Scope.Thread)
+    public static class IndexedCopy extends Copy{
+        @Setup(Level.Invocation)
+        public void index() throws Throwable{
+            PolynomialHandles.SET_INDEXED.invokeExact(p, true);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDS)
+    public Object addTerm(Copy copy) throws Throwable{
+        for(int exp : copy.exps){
+            PolynomialHandles.ADD_TERM.invokeExact(copy.p, 0.5, exp);
+        }
+        return copy.p;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDS)
+    public Object indexedAddTerm(IndexedCopy copy) throws Throwable{
+        for(int exp : copy.exps){
+            PolynomialHandles.ADD_TERM.invokeExact(copy.p, 0.5, exp);
+        }
+        return copy.p;
+    }
+
+    @Benchmark
+    public double getCoefficient() throws Throwable{
+        return (double)PolynomialHandles.GET_COEFFICIENT.invokeExact(a, random.nextInt(degree + 1));
+    }
+
+    @Benchmark
+    public double evaluate() throws Throwable{
+        return (double)PolynomialHandles.EVALUATE.invokeExact(a, 0.999);
+    }
+
+    @Benchmark
+    public Object sum() throws Throwable{
+        return (Object)PolynomialHandles.SUM.invokeExact(a, b);
+    }
+
+    @Benchmark
+    public Object derivative() throws Throwable{
+        return (Object)PolynomialHandles.DERIVATIVE.invokeExact(a);
+    }
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+
+/**
+ * Method handles on Polynomial, and the fixtures shared by the benchmarks.
+ * JMH will not generate code for benchmarks in the default package, and a
+ * class in a named package cannot name one in the default package, so the
+ * benchmarks reach Polynomial through these handles. Each is adapted to take
+ * and return Object in place of Polynomial so that it can be called with
+ * invokeExact. Held in static final fields they are constants to the JIT,
+ * which inlines through them as it would through direct calls.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+final class PolynomialHandles{
+
+    /** Sparse polynomials use every SPARSE_SPREAD-th exponent. */
+    static final int SPARSE_SPREAD = 16;
+
+    static final MethodHandle PARSE;           // (String) Object
+    static final MethodHandle COPY;            // (Object) Object
+    static final MethodHandle ADD_TERM;        // (Object, double, int) void
+    static final MethodHandle SET_INDEXED;     // (Object, boolean) void
+    static final MethodHandle GET_COEFFICIENT; // (Object, int) double
+    static final MethodHandle EVALUATE;        // (Object, double) double
+    static final MethodHandle SUM;             // (Object, Object) Object
+    static final MethodHandle PRODUCT;         // (Object, Object) Object
+    static final MethodHandle DERIVATIVE;      // (Object) Object
+    static final MethodHandle COMPOSE;         // (Object, Object) Object
+    static final MethodHandle SHIFT;           // (Object, double) Object
+
+    static{
+        try{
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> p = Class.forName("Polynomial");
+            PARSE = lookup.findConstructor(p, MethodType.methodType(void.class, String.class))
+                .asType(MethodType.methodType(Object.class, String.class));
+            COPY = lookup.findConstructor(p, MethodType.methodType(void.class, p))
+                .asType(MethodType.methodType(Object.class, Object.class));
+            ADD_TERM = lookup.findVirtual(p, "addTerm",
+                                          MethodType.methodType(void.class, double.class, int.class))
+                .asType(MethodType.methodType(void.class, Object.class, double.class, int.class));
+            SET_INDEXED = lookup.findVirtual(p, "setIndexed",
+                                             MethodType.methodType(void.class, boolean.class))
+                .asType(MethodType.methodType(void.class, Object.class, boolean.class));
+            GET_COEFFICIENT = lookup.findVirtual(p, "getCoefficient",
+                                                 MethodType.methodType(double.class, int.class))
+                .asType(MethodType.methodType(double.class, Object.class, int.class));
+            EVALUATE = lookup.findVirtual(p, "evaluate",
+                                          MethodType.methodType(double.class, double.class))
+                .asType(MethodType.methodType(double.class, Object.class, double.class));
+            SUM = lookup.findStatic(p, "sum", MethodType.methodType(p, p, p))
+                .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            PRODUCT = lookup.findStatic(p, "product", MethodType.methodType(p, p, p))
+                .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            DERIVATIVE = lookup.findVirtual(p, "derivative", MethodType.methodType(p))
+                .asType(MethodType.methodType(Object.class, Object.class));
+            COMPOSE = lookup.findVirtual(p, "compose", MethodType.methodType(p, p))
+                .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            SHIFT = lookup.findVirtual(p, "shift", MethodType.methodType(p, double.class))
+                .asType(MethodType.methodType(Object.class, Object.class, double.class));
+        } catch (ReflectiveOperationException e){
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private PolynomialHandles(){
+    }
+
+    /**
+     * Returns the spread between exponents for a layout, "dense" or "sparse".
+     */
+    static int spread(String layout){
+        return layout.equals("dense") ? 1 : SPARSE_SPREAD;
+    }
+
+    /**
+     * Returns the text of a polynomial with the given number of terms, in the
+     * input format of the String constructor. Coefficients are drawn from
+     * [0.5, 1.5) and exponents are the multiples of spread.
+     */
+    static String text(Random random, int terms, int spread){
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < terms; i++){
+            text.append(random.nextDouble() + 0.5).append(' ').append(i * spread).append(' ');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns a new Polynomial with the terms described for text.
+     */
+    static Object random(Random random, int terms, int spread) throws Throwable{
+        return (Object)PARSE.invokeExact(text(random, terms, spread));
+    }
+
+    /**
+     * Returns p(q) for p of the given degree, expanded by Horner's scheme
+     * with product and addTerm, as it was done before Polynomial.compose.
+     */
+    static Object naiveCompose(Object p, int degree, Object q) throws Throwable{
+        Object result = (Object)PARSE.invokeExact("");
+        for(int e = degree; e >= 0; e--){
+            result = (Object)PRODUCT.invokeExact(result, q);
+            double coef = (double)GET_COEFFICIENT.invokeExact(p, e);
+            if(coef != 0){
+                ADD_TERM.invokeExact(result, coef, 0);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Polynomial.product, dense and sparse. A sparse product costs time
+ * quadratic in the number of terms, so sizes stop at 10^4 for both layouts;
+ * dense products can be run larger with -p terms=100000,1000000.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductBenchmark{
+
+    @Param({"10", "100", "1000", "10000"})
+    int terms;
+
+    @Param({"dense", "sparse"})
+    String layout;
+
+    Object a;
+    Object b;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable{
+        int spread = PolynomialHandles.spread(layout);
+        Random random = new Random(terms);
+        a = PolynomialHandles.random(random, terms, spread);
+        b = PolynomialHandles.random(random, terms, spread);
+    }
+
+    @Benchmark
+    public Object product() throws Throwable{
+        return (Object)PolynomialHandles.PRODUCT.invokeExact(a, b);
+    }
+}
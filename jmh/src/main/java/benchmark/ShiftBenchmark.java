@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Polynomial.shift of a dense polynomial, and the same shift expanded by
+ * Horner's scheme as a composition with x + 0.5.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShiftBenchmark{
+
+    @Param({"10", "100", "1000", "10000"})
+    int terms;
+
+    Object a;
+    Object shift;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable{
+        a = PolynomialHandles.random(new Random(terms), terms, 1);
+        shift = (Object)PolynomialHandles.PARSE.invokeExact("1 1 0.5 0");
+    }
+
+    @Benchmark
+    public Object shift() throws Throwable{
+        return (Object)PolynomialHandles.SHIFT.invokeExact(a, 0.5);
+    }
+
+    @Benchmark
+    public Object naiveShift() throws Throwable{
+        return PolynomialHandles.naiveCompose(a, terms - 1, shift);
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Polynomial.toString and the String constructor, dense and sparse, up to
+ * 10^5 terms, beyond which the text alone runs to megabytes.
+ *
+ * @author Matthew Staehely
+ * @version CSC 143 Winter 15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringBenchmark{
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int terms;
+
+    @Param({"dense", "sparse"})
+    String layout;
+
+    String text;
+    Object a;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable{
+        text = PolynomialHandles.text(new Random(terms), terms, PolynomialHandles.spread(layout));
+        a = (Object)PolynomialHandles.PARSE.invokeExact(text);
+    }
+
+    @Benchmark
+    public String toText(){
+        return a.toString();
+    }
+
+    @Benchmark
+    public Object parse() throws Throwable{
+        return (Object)PolynomialHandles.PARSE.invokeExact(text);
+    }
+}